@@ -0,0 +1,60 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders complete trees to a null logger, for each {@link Theme}. The trees are only printed, not removed,
+ * so every invocation renders the same lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ActualTreePrinterBenchmark {
+
+    @Param({"ASCII", "UNICODE", "EMOJI"})
+    Theme theme;
+
+    /**
+     * {@code depth x width x testsPerClass} of the suite, see {@link BenchmarkSuite#ofShape(String, int...)}.
+     */
+    @Param({"1x100x10", "3x100x10", "1x100x1000", "3x100x1000", "1000x1x10", "1x100000x10"})
+    String shape;
+
+    @Param({"PLAIN", "HIDE_SUCCESS", "BATCH", "COMPACT"})
+    BenchmarkOutput output;
+
+    private List<Node> trees;
+    private ConsoleLogger logger;
+    private ReporterOptions options;
+
+    @Setup
+    public void setup() {
+        options = output.options(theme);
+        trees = BenchmarkSuite.ofShape(shape).trees(output, options);
+        logger = output.logger(new NullConsoleLogger());
+    }
+
+    @Benchmark
+    public void print() {
+        for (Node tree : trees) {
+            new ActualTreePrinter(tree, logger, options).print();
+            OutputBlock.flush(logger);
+        }
+    }
+}
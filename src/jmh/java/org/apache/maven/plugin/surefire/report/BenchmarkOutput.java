@@ -0,0 +1,24 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
+
+/**
+ * Output options the benchmarks are run with.
+ */
+public enum BenchmarkOutput {
+    PLAIN, HIDE_SUCCESS, BATCH, STREAM_NESTED, COMPACT;
+
+    ReporterOptions options(Theme theme) {
+        return ReporterOptions.builder()
+                .theme(theme)
+                .hideResultsOnSuccess(this == HIDE_SUCCESS)
+                .batchOutput(this == BATCH)
+                .streamNestedTests(this == STREAM_NESTED)
+                .compactEntries(this == COMPACT)
+                .build();
+    }
+
+    ConsoleLogger logger(ConsoleLogger logger) {
+        return this == BATCH ? new BatchingConsoleLogger(logger) : logger;
+    }
+}
@@ -0,0 +1,149 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.surefire.api.report.RunMode;
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generated test classes for the benchmarks: {@code width} top-level classes, each with a chain of
+ * {@code depth - 1} nested classes, every class running {@code testsPerClass} tests. One test in 100
+ * fails and one in 50 is skipped.
+ * <p>
+ * The events are created once, so the benchmarks only measure the reporter.
+ */
+final class BenchmarkSuite {
+
+    private final Utf8RecodingDeferredFileOutputStream stdout = new Utf8RecodingDeferredFileOutputStream("stdout");
+    private final Utf8RecodingDeferredFileOutputStream stderr = new Utf8RecodingDeferredFileOutputStream("stderr");
+    private final List<TopLevelClass> classes = new ArrayList<>();
+
+    BenchmarkSuite(int width, int depth, int testsPerClass) {
+        this("bench", width, depth, testsPerClass);
+    }
+
+    /**
+     * Suite of the shape {@code depth x width}, or {@code depth x width x testsPerClass} when {@code testsPerClass}
+     * is not given. Benchmarks take the deep and the wide ends as shapes of their own, as a suite 1,000 levels deep
+     * and 100k wide at the same time would not fit in memory.
+     */
+    static BenchmarkSuite ofShape(String shape, int... testsPerClass) {
+        String[] sizes = shape.split("x");
+        int tests = testsPerClass.length > 0 ? testsPerClass[0] : Integer.parseInt(sizes[2].trim());
+        return new BenchmarkSuite(Integer.parseInt(sizes[1].trim()), Integer.parseInt(sizes[0].trim()), tests);
+    }
+
+    /**
+     * Suite whose classes are in package {@code packageName}, so several suites can run side by side.
+     */
+    BenchmarkSuite(String packageName, int width, int depth, int testsPerClass) {
+        for (int i = 0; i < width; i++) {
+            classes.add(new TopLevelClass(packageName + ".Test" + i, depth, testsPerClass));
+        }
+    }
+
+    int size() {
+        return classes.size();
+    }
+
+    /**
+     * The entries every class starts with, top-level classes first.
+     */
+    List<SimpleReportEntry> classEntries() {
+        List<SimpleReportEntry> entries = new ArrayList<>();
+        for (TopLevelClass topLevelClass : classes) {
+            for (SimpleReportEntry entry : topLevelClass.starting) entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Sends the events of every class through {@link TestReportHandler}, in the order surefire does:
+     * a class and its nested classes start, then complete from the innermost one, whose stats hold
+     * all of their tests.
+     */
+    void replay(Node tree, TreePrinter treePrinter) {
+        for (TopLevelClass topLevelClass : classes) {
+            for (SimpleReportEntry entry : topLevelClass.starting) {
+                new TestReportHandler(tree, entry).prepare(treePrinter);
+            }
+            for (int level = topLevelClass.completed.length - 1; level >= 0; level--) {
+                new TestReportHandler(tree, topLevelClass.completed[level], topLevelClass.stats[level]).print(treePrinter);
+            }
+        }
+    }
+
+    /**
+     * Sends the events of the top-level class {@code index} and its nested classes to {@code reporter},
+     * the way a fork's listener does.
+     */
+    void replay(int index, ConsoleTreeReporter reporter) {
+        TopLevelClass topLevelClass = classes.get(index);
+        for (SimpleReportEntry entry : topLevelClass.starting) {
+            reporter.testSetStarting(entry);
+        }
+        for (int level = topLevelClass.completed.length - 1; level >= 0; level--) {
+            reporter.testSetCompleted(topLevelClass.completed[level], topLevelClass.stats[level], null);
+            reporter.reset();
+        }
+    }
+
+    /**
+     * Builds the complete tree of every class, as it is right before printing.
+     */
+    List<Node> trees(BenchmarkOutput output, ReporterOptions options) {
+        Node root = output == BenchmarkOutput.COMPACT ? Node.createRoot(() -> new CompactReportEntries(options)) : Node.createRoot();
+        List<Node> trees = new ArrayList<>();
+        for (TopLevelClass topLevelClass : classes) {
+            for (int level = 0; level < topLevelClass.completed.length; level++) {
+                WrappedReportEntry classEntry = topLevelClass.completed[level];
+                root.addNode(classEntry).setClassReportEntry(classEntry);
+            }
+            for (WrappedReportEntry test : topLevelClass.stats[topLevelClass.stats.length - 1].getReportEntries()) {
+                root.addPath(test.getSourceName()).wrappedReportEntries.add(test);
+            }
+            trees.add(root.findNode(topLevelClass.starting[0].getSourceName()).get());
+        }
+        return trees;
+    }
+
+    private final class TopLevelClass {
+        private final SimpleReportEntry[] starting;
+        private final WrappedReportEntry[] completed;
+        private final TestSetStats[] stats;
+
+        private TopLevelClass(String name, int depth, int testsPerClass) {
+            starting = new SimpleReportEntry[depth];
+            completed = new WrappedReportEntry[depth];
+            stats = new TestSetStats[depth];
+            TestSetStats innermost = new TestSetStats(false, true);
+            String sourceName = name;
+            String sourceText = name.substring(name.lastIndexOf('.') + 1);
+            for (int level = 0; level < depth; level++) {
+                if (level > 0) {
+                    sourceName += "$Nested" + level;
+                    sourceText += " Nested" + level;
+                }
+                starting[level] = new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, sourceName, sourceText, null, null);
+                completed[level] = new WrappedReportEntry(starting[level], ReportEntryType.SUCCESS, 12, stdout, stderr);
+                stats[level] = level == depth - 1 ? innermost : new TestSetStats(false, true);
+                for (int test = 0; test < testsPerClass; test++) {
+                    addTest(innermost, sourceName, sourceText, test);
+                }
+            }
+        }
+
+        private void addTest(TestSetStats stats, String sourceName, String sourceText, int test) {
+            SimpleReportEntry entry = new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, sourceName, sourceText,
+                    "test" + test + "()", "Test number " + test);
+            if (test % 100 == 99) {
+                stats.testFailure(new WrappedReportEntry(entry, ReportEntryType.FAILURE, 3, stdout, stderr));
+            } else if (test % 50 == 49) {
+                stats.testSkipped(new WrappedReportEntry(entry, ReportEntryType.SKIPPED, null, stdout, stderr));
+            } else {
+                stats.testSucceeded(new WrappedReportEntry(entry, ReportEntryType.SUCCESS, 1, stdout, stderr));
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Several forks pushing test set events at the same time, each benchmark thread being a fork. Reports the
+ * top-level classes handled per millisecond, and how often and how long the threads were blocked on a
+ * monitor or waiting, per iteration.
+ * <p>
+ * The number of forks is the number of threads, set with {@code -t}, e.g. {@code -t 64}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class ConcurrentIngestionBenchmark {
+
+    /**
+     * A fork: its own classes, and its own reporter with its own {@link Node} root unless the reporter is shared.
+     */
+    @State(Scope.Thread)
+    public static class Fork {
+
+        @Param({"1", "3"})
+        int depth;
+
+        @Param({"100"})
+        int testsPerClass;
+
+        private BenchmarkSuite suite;
+        private ConsoleTreeReporter reporter;
+        private int next;
+
+        @Setup
+        public void setup(Output output, ThreadParams threadParams) {
+            suite = new BenchmarkSuite("fork" + threadParams.getThreadIndex(), 100, depth, testsPerClass);
+            reporter = new ConsoleTreeReporter(output.logger, output.options);
+        }
+
+        private int nextClass() {
+            int index = next;
+            next = (next + 1) % suite.size();
+            return index;
+        }
+    }
+
+    /**
+     * What all the forks share: the logger, and the reporter in {@link #sharedReporter(Fork, Output, Contention)}.
+     */
+    @State(Scope.Benchmark)
+    public static class Output {
+
+        @Param({"PLAIN", "STREAM_NESTED", "COMPACT"})
+        BenchmarkOutput output;
+
+        private ConsoleLogger logger;
+        private ReporterOptions options;
+        private ConsoleTreeReporter reporter;
+
+        @Setup
+        public void setup() {
+            options = output.options(Theme.ASCII);
+            logger = new NullConsoleLogger();
+            reporter = new ConsoleTreeReporter(logger, options);
+        }
+    }
+
+    /**
+     * Monitor contention of each thread, summed over the threads of an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Contention {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        public long blockedCount;
+        public long blockedMillis;
+        public long waitedCount;
+        public long waitedMillis;
+        private ThreadInfo start;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            if (THREADS.isThreadContentionMonitoringSupported()) THREADS.setThreadContentionMonitoringEnabled(true);
+            start = THREADS.getThreadInfo(Thread.currentThread().getId());
+            blockedCount = blockedMillis = waitedCount = waitedMillis = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            ThreadInfo end = THREADS.getThreadInfo(Thread.currentThread().getId());
+            blockedCount = end.getBlockedCount() - start.getBlockedCount();
+            blockedMillis = Math.max(0, end.getBlockedTime() - start.getBlockedTime());
+            waitedCount = end.getWaitedCount() - start.getWaitedCount();
+            waitedMillis = Math.max(0, end.getWaitedTime() - start.getWaitedTime());
+        }
+    }
+
+    /**
+     * Each fork has its own reporter, tree and {@link TreePrinter}, as with surefire's fork listeners, sharing
+     * only the logger, so the forks should scale without contending.
+     */
+    @Benchmark
+    public void reporterPerFork(Fork fork, Contention contention) {
+        fork.suite.replay(fork.nextClass(), fork.reporter);
+    }
+
+    /**
+     * All forks push their events into a single reporter: one concurrent tree, and one {@link TreePrinter}
+     * whose synchronized methods every completed class goes through.
+     */
+    @Benchmark
+    public void sharedReporter(Fork fork, Output output, Contention contention) {
+        fork.suite.replay(fork.nextClass(), output.reporter);
+    }
+}
@@ -0,0 +1,49 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds every class of a suite to an empty tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NodeBenchmark {
+
+    /**
+     * {@code depth x width} of the suite, see {@link BenchmarkSuite#ofShape(String, int...)}.
+     */
+    @Param({"1x1000", "5x1000", "20x1000", "1x10000", "5x10000", "20x10000", "1000x10", "1x100000"})
+    String shape;
+
+    private List<SimpleReportEntry> classEntries;
+
+    @Setup
+    public void setup() {
+        classEntries = BenchmarkSuite.ofShape(shape, 0).classEntries();
+    }
+
+    @Benchmark
+    public Node addNode() {
+        Node tree = Node.createRoot();
+        for (SimpleReportEntry classEntry : classEntries) {
+            tree.addNode(classEntry);
+        }
+        return tree;
+    }
+}
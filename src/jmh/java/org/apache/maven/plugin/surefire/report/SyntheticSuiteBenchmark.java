@@ -0,0 +1,42 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole build of a million tests generated by {@link SyntheticSuite}, with failures, errors, skipped and
+ * parameterized tests, through a {@link ConsoleTreeReporter} printing to a null logger. The events are
+ * generated while they are reported, so this measures both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class SyntheticSuiteBenchmark {
+
+    @Param({"1000000"})
+    int tests;
+
+    @Param({"PLAIN", "BATCH", "STREAM_NESTED", "COMPACT"})
+    BenchmarkOutput output;
+
+    @Benchmark
+    public SyntheticSuite million() {
+        // 4 classes per top-level class, each running 450 tests on average: a tenth of its 250 tests run 9 times
+        SyntheticSuite suite = SyntheticSuite.builder().classes(tests / 1800).nestedClasses(3).depth(1).testsPerClass(250)
+                .parameterizedRatio(0.1).fanOut(9).failureRatio(0.01).errorRatio(0.005).skippedRatio(0.02).build();
+        suite.run(new ConsoleTreeReporter(new NullConsoleLogger(), output.options(Theme.ASCII)));
+        return suite;
+    }
+}
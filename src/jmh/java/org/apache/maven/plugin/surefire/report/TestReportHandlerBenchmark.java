@@ -0,0 +1,58 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a whole suite through {@link TestReportHandler#prepare(TreePrinter)} and
+ * {@link TestReportHandler#print(TreePrinter)}, printing to a null logger: the overhead of the
+ * reporter on a build, from ingestion to rendering.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TestReportHandlerBenchmark {
+
+    @Param({"1", "3"})
+    int depth;
+
+    @Param({"1000"})
+    int width;
+
+    @Param({"10", "100"})
+    int testsPerClass;
+
+    @Param({"PLAIN", "HIDE_SUCCESS", "BATCH", "STREAM_NESTED", "COMPACT"})
+    BenchmarkOutput output;
+
+    private BenchmarkSuite suite;
+    private ReporterOptions options;
+
+    @Setup
+    public void setup() {
+        suite = new BenchmarkSuite(width, depth, testsPerClass);
+        options = output.options(Theme.ASCII);
+    }
+
+    @Benchmark
+    public Node prepareAndPrint() {
+        Node tree = output == BenchmarkOutput.COMPACT
+                ? Node.createRoot(() -> new CompactReportEntries(options))
+                : Node.createRoot();
+        suite.replay(tree, new TreePrinter(new NullConsoleLogger(), options));
+        return tree;
+    }
+}
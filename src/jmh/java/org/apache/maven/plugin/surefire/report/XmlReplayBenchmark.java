@@ -0,0 +1,72 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The XML reports of a real build through a {@link ConsoleTreeReporter} printing to a null logger, so the
+ * reporter is measured on production suite shapes. {@code replay} sends reports parsed beforehand;
+ * {@code parseAndReplay} also parses them on {@code threads} threads, like rendering a past build does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class XmlReplayBenchmark {
+
+    /**
+     * Directory searched for {@code TEST-*.xml} files, at any depth.
+     */
+    @Param({"target/surefire-reports"})
+    String reports;
+
+    @Param({"1", "4"})
+    int threads;
+
+    @Param({"PLAIN", "BATCH", "COMPACT"})
+    BenchmarkOutput output;
+
+    private List<Path> files;
+    private List<SurefireXmlReplay.Report> parsed;
+    private ReporterOptions options;
+
+    @Setup
+    public void setup() throws IOException {
+        files = SurefireXmlReplay.findReports(Paths.get(reports));
+        if (files.isEmpty()) throw new IllegalStateException("No TEST-*.xml file under " + Paths.get(reports).toAbsolutePath());
+        parsed = new SurefireXmlReplay(files, threads).readAll();
+        options = output.options(Theme.ASCII);
+    }
+
+    @Benchmark
+    public ConsoleTreeReporter replay() {
+        ConsoleTreeReporter reporter = new ConsoleTreeReporter(new NullConsoleLogger(), options);
+        for (SurefireXmlReplay.Report report : parsed) {
+            report.replay(reporter);
+        }
+        return reporter;
+    }
+
+    @Benchmark
+    public ConsoleTreeReporter parseAndReplay() {
+        ConsoleTreeReporter reporter = new ConsoleTreeReporter(new NullConsoleLogger(), options);
+        new SurefireXmlReplay(files, threads).replay(reporter);
+        return reporter;
+    }
+}
@@ -3,11 +3,17 @@ package org.apache.maven.plugin.surefire.extensions.junit5;
 import org.apache.maven.plugin.surefire.loader.SurefireClassLoaderModifier;
 import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
 import org.apache.maven.plugin.surefire.report.ConsoleTreeReporter;
+import org.apache.maven.plugin.surefire.report.ForkAggregator;
+import org.apache.maven.plugin.surefire.report.QueueFullPolicy;
 import org.apache.maven.plugin.surefire.report.ReporterOptions;
 import org.apache.maven.plugin.surefire.report.TestSetStats;
 import org.apache.maven.plugin.surefire.report.Theme;
 import org.apache.maven.plugin.surefire.report.WrappedReportEntry;
 import org.apache.maven.surefire.extensions.StatelessTestsetInfoConsoleReportEventListener;
+import org.apache.maven.surefire.extensions.StatelessTestsetInfoFileReportEventListener;
+
+import java.io.File;
+import java.nio.charset.Charset;
 
 /**
  * Extension of {@link JUnit5StatelessTestsetInfoReporter file and console
@@ -27,7 +33,30 @@ public class JUnit5StatelessTestsetInfoTreeReporter extends JUnit5StatelessTests
     private boolean printStdoutOnSuccess;
     private boolean hideResultsOnSuccess;
     private boolean printBlankLineBetweenTests;
+    private boolean batchOutput;
+    private boolean asyncOutput;
+    private int asyncQueueSize = 256;
+    private QueueFullPolicy asyncQueueFullPolicy = QueueFullPolicy.BLOCK;
+    private int maxDetailLines;
+    private long maxDetailBytes;
+    private int detailHeadLines = 50;
+    private int detailTailLines = 50;
+    private String detailSpillDirectory;
+    private boolean streamNestedTests;
+    private int nestedTestsTimeoutSeconds;
+    private int maxBufferedNestedEntries;
+    private boolean compactEntries;
+    private boolean atomicOutput;
+    private int atomicOutputMaxMemory = 4 * 1024 * 1024;
+    private int reorderWindowSize;
+    private int reorderWindowSeconds;
+    private boolean aggregateForks;
+    private boolean collapseSuccess;
+    private boolean foldParameterizedTests;
+    private int maxInvocationLines;
     private Theme theme = Theme.ASCII;
+    private ForkAggregator forkAggregator;
+    private volatile File reportsDirectory;
 
     @Override
     public Object clone(ClassLoader target) {
@@ -41,6 +70,9 @@ public class JUnit5StatelessTestsetInfoTreeReporter extends JUnit5StatelessTests
             Class<?> themeClass = target.loadClass(Theme.class.getName());
             @SuppressWarnings({ "rawtypes", "unchecked" })
             Object clonedTheme = Enum.valueOf((Class) themeClass, getTheme().name());
+            Class<?> queueFullPolicyClass = target.loadClass(QueueFullPolicy.class.getName());
+            @SuppressWarnings({ "rawtypes", "unchecked" })
+            Object clonedQueueFullPolicy = Enum.valueOf((Class) queueFullPolicyClass, getAsyncQueueFullPolicy().name());
 
             cls.getMethod("setPrintStacktraceOnError", boolean.class).invoke(clone, isPrintStacktraceOnError());
             cls.getMethod("setPrintStacktraceOnFailure", boolean.class).invoke(clone, isPrintStacktraceOnFailure());
@@ -50,7 +82,28 @@ public class JUnit5StatelessTestsetInfoTreeReporter extends JUnit5StatelessTests
             cls.getMethod("setPrintStdoutOnError", boolean.class).invoke(clone, isPrintStdoutOnError());
             cls.getMethod("setPrintStdoutOnFailure", boolean.class).invoke(clone, isPrintStdoutOnFailure());
             cls.getMethod("setPrintStdoutOnSuccess", boolean.class).invoke(clone, isPrintStdoutOnSuccess());
-            cls.getMethod("setHideResultsOnSuccess", boolean.class).invoke(clone, isPrintStdoutOnSuccess());
+            cls.getMethod("setHideResultsOnSuccess", boolean.class).invoke(clone, isHideResultsOnSuccess());
+            cls.getMethod("setBatchOutput", boolean.class).invoke(clone, isBatchOutput());
+            cls.getMethod("setAsyncOutput", boolean.class).invoke(clone, isAsyncOutput());
+            cls.getMethod("setAsyncQueueSize", int.class).invoke(clone, getAsyncQueueSize());
+            cls.getMethod("setAsyncQueueFullPolicy", queueFullPolicyClass).invoke(clone, clonedQueueFullPolicy);
+            cls.getMethod("setMaxDetailLines", int.class).invoke(clone, getMaxDetailLines());
+            cls.getMethod("setMaxDetailBytes", long.class).invoke(clone, getMaxDetailBytes());
+            cls.getMethod("setDetailHeadLines", int.class).invoke(clone, getDetailHeadLines());
+            cls.getMethod("setDetailTailLines", int.class).invoke(clone, getDetailTailLines());
+            cls.getMethod("setDetailSpillDirectory", String.class).invoke(clone, getDetailSpillDirectory());
+            cls.getMethod("setStreamNestedTests", boolean.class).invoke(clone, isStreamNestedTests());
+            cls.getMethod("setNestedTestsTimeoutSeconds", int.class).invoke(clone, getNestedTestsTimeoutSeconds());
+            cls.getMethod("setMaxBufferedNestedEntries", int.class).invoke(clone, getMaxBufferedNestedEntries());
+            cls.getMethod("setCompactEntries", boolean.class).invoke(clone, isCompactEntries());
+            cls.getMethod("setAtomicOutput", boolean.class).invoke(clone, isAtomicOutput());
+            cls.getMethod("setAtomicOutputMaxMemory", int.class).invoke(clone, getAtomicOutputMaxMemory());
+            cls.getMethod("setReorderWindowSize", int.class).invoke(clone, getReorderWindowSize());
+            cls.getMethod("setReorderWindowSeconds", int.class).invoke(clone, getReorderWindowSeconds());
+            cls.getMethod("setAggregateForks", boolean.class).invoke(clone, isAggregateForks());
+            cls.getMethod("setCollapseSuccess", boolean.class).invoke(clone, isCollapseSuccess());
+            cls.getMethod("setFoldParameterizedTests", boolean.class).invoke(clone, isFoldParameterizedTests());
+            cls.getMethod("setMaxInvocationLines", int.class).invoke(clone, getMaxInvocationLines());
             cls.getMethod("setTheme", themeClass).invoke(clone, clonedTheme);
 
             return clone;
@@ -62,7 +115,29 @@ public class JUnit5StatelessTestsetInfoTreeReporter extends JUnit5StatelessTests
     @Override
     public StatelessTestsetInfoConsoleReportEventListener<WrappedReportEntry, TestSetStats> createListener(
             ConsoleLogger logger) {
-        return new ConsoleTreeReporter(logger, newReporterOptions());
+        ReporterOptions options = newReporterOptions();
+        if (!options.isAggregateForks()) return new ConsoleTreeReporter(logger, options);
+        synchronized (this) {
+            // one listener is created per fork, they all share the aggregator of this run
+            if (forkAggregator == null) forkAggregator = new ForkAggregator(logger, options);
+            return new ConsoleTreeReporter(logger, options, forkAggregator);
+        }
+    }
+
+    /**
+     * Keeps the reports directory of the module, where details are spilled by default. Surefire creates this
+     * listener right after the console one, before any test completes.
+     */
+    @Override
+    public StatelessTestsetInfoFileReportEventListener<WrappedReportEntry, TestSetStats> createListener(
+            File reportsDirectory, String reportNameSuffix, Charset encoding) {
+        this.reportsDirectory = reportsDirectory;
+        return super.createListener(reportsDirectory, reportNameSuffix, encoding);
+    }
+
+    private File getReportsDirectory() {
+        File reportsDirectory = this.reportsDirectory;
+        return reportsDirectory != null ? reportsDirectory : new File("target", "surefire-reports");
     }
 
     public Theme getTheme() {
@@ -109,6 +184,90 @@ public class JUnit5StatelessTestsetInfoTreeReporter extends JUnit5StatelessTests
         return printBlankLineBetweenTests;
     }
 
+    public boolean isBatchOutput() {
+        return batchOutput;
+    }
+
+    public boolean isAsyncOutput() {
+        return asyncOutput;
+    }
+
+    public int getAsyncQueueSize() {
+        return asyncQueueSize;
+    }
+
+    public QueueFullPolicy getAsyncQueueFullPolicy() {
+        return asyncQueueFullPolicy;
+    }
+
+    public int getMaxDetailLines() {
+        return maxDetailLines;
+    }
+
+    public long getMaxDetailBytes() {
+        return maxDetailBytes;
+    }
+
+    public int getDetailHeadLines() {
+        return detailHeadLines;
+    }
+
+    public int getDetailTailLines() {
+        return detailTailLines;
+    }
+
+    public String getDetailSpillDirectory() {
+        return detailSpillDirectory;
+    }
+
+    public boolean isStreamNestedTests() {
+        return streamNestedTests;
+    }
+
+    public int getNestedTestsTimeoutSeconds() {
+        return nestedTestsTimeoutSeconds;
+    }
+
+    public int getMaxBufferedNestedEntries() {
+        return maxBufferedNestedEntries;
+    }
+
+    public boolean isCompactEntries() {
+        return compactEntries;
+    }
+
+    public boolean isAtomicOutput() {
+        return atomicOutput;
+    }
+
+    public int getAtomicOutputMaxMemory() {
+        return atomicOutputMaxMemory;
+    }
+
+    public int getReorderWindowSize() {
+        return reorderWindowSize;
+    }
+
+    public int getReorderWindowSeconds() {
+        return reorderWindowSeconds;
+    }
+
+    public boolean isAggregateForks() {
+        return aggregateForks;
+    }
+
+    public boolean isCollapseSuccess() {
+        return collapseSuccess;
+    }
+
+    public boolean isFoldParameterizedTests() {
+        return foldParameterizedTests;
+    }
+
+    public int getMaxInvocationLines() {
+        return maxInvocationLines;
+    }
+
     public void setPrintStacktraceOnError(boolean printStacktraceOnError) {
         this.printStacktraceOnError = printStacktraceOnError;
     }
@@ -149,6 +308,90 @@ public class JUnit5StatelessTestsetInfoTreeReporter extends JUnit5StatelessTests
         this.printBlankLineBetweenTests = printBlankLineBetweenTests;
     }
 
+    public void setBatchOutput(boolean batchOutput) {
+        this.batchOutput = batchOutput;
+    }
+
+    public void setAsyncOutput(boolean asyncOutput) {
+        this.asyncOutput = asyncOutput;
+    }
+
+    public void setAsyncQueueSize(int asyncQueueSize) {
+        this.asyncQueueSize = asyncQueueSize;
+    }
+
+    public void setAsyncQueueFullPolicy(QueueFullPolicy asyncQueueFullPolicy) {
+        this.asyncQueueFullPolicy = asyncQueueFullPolicy;
+    }
+
+    public void setMaxDetailLines(int maxDetailLines) {
+        this.maxDetailLines = maxDetailLines;
+    }
+
+    public void setMaxDetailBytes(long maxDetailBytes) {
+        this.maxDetailBytes = maxDetailBytes;
+    }
+
+    public void setDetailHeadLines(int detailHeadLines) {
+        this.detailHeadLines = detailHeadLines;
+    }
+
+    public void setDetailTailLines(int detailTailLines) {
+        this.detailTailLines = detailTailLines;
+    }
+
+    public void setDetailSpillDirectory(String detailSpillDirectory) {
+        this.detailSpillDirectory = detailSpillDirectory;
+    }
+
+    public void setStreamNestedTests(boolean streamNestedTests) {
+        this.streamNestedTests = streamNestedTests;
+    }
+
+    public void setNestedTestsTimeoutSeconds(int nestedTestsTimeoutSeconds) {
+        this.nestedTestsTimeoutSeconds = nestedTestsTimeoutSeconds;
+    }
+
+    public void setMaxBufferedNestedEntries(int maxBufferedNestedEntries) {
+        this.maxBufferedNestedEntries = maxBufferedNestedEntries;
+    }
+
+    public void setCompactEntries(boolean compactEntries) {
+        this.compactEntries = compactEntries;
+    }
+
+    public void setAtomicOutput(boolean atomicOutput) {
+        this.atomicOutput = atomicOutput;
+    }
+
+    public void setAtomicOutputMaxMemory(int atomicOutputMaxMemory) {
+        this.atomicOutputMaxMemory = atomicOutputMaxMemory;
+    }
+
+    public void setReorderWindowSize(int reorderWindowSize) {
+        this.reorderWindowSize = reorderWindowSize;
+    }
+
+    public void setReorderWindowSeconds(int reorderWindowSeconds) {
+        this.reorderWindowSeconds = reorderWindowSeconds;
+    }
+
+    public void setAggregateForks(boolean aggregateForks) {
+        this.aggregateForks = aggregateForks;
+    }
+
+    public void setCollapseSuccess(boolean collapseSuccess) {
+        this.collapseSuccess = collapseSuccess;
+    }
+
+    public void setFoldParameterizedTests(boolean foldParameterizedTests) {
+        this.foldParameterizedTests = foldParameterizedTests;
+    }
+
+    public void setMaxInvocationLines(int maxInvocationLines) {
+        this.maxInvocationLines = maxInvocationLines;
+    }
+
     public void setTheme(Theme theme) {
         this.theme = theme;
     }
@@ -177,6 +420,28 @@ public class JUnit5StatelessTestsetInfoTreeReporter extends JUnit5StatelessTests
                 .usePhrasedClassNameInRunning(isUsePhrasedClassNameInRunning())
                 .usePhrasedClassNameInTestCaseSummary(isUsePhrasedClassNameInTestCaseSummary())
                 .printBlankLineBetweenTests(isPrintBlankLineBetweenTests())
+                .batchOutput(isBatchOutput())
+                .asyncOutput(isAsyncOutput())
+                .asyncQueueSize(getAsyncQueueSize())
+                .asyncQueueFullPolicy(getAsyncQueueFullPolicy())
+                .maxDetailLines(getMaxDetailLines())
+                .maxDetailBytes(getMaxDetailBytes())
+                .detailHeadLines(getDetailHeadLines())
+                .detailTailLines(getDetailTailLines())
+                .detailSpillDirectory(getDetailSpillDirectory())
+                .reportsDirectory(this::getReportsDirectory)
+                .streamNestedTests(isStreamNestedTests())
+                .nestedTestsTimeoutSeconds(getNestedTestsTimeoutSeconds())
+                .maxBufferedNestedEntries(getMaxBufferedNestedEntries())
+                .compactEntries(isCompactEntries())
+                .atomicOutput(isAtomicOutput())
+                .atomicOutputMaxMemory(getAtomicOutputMaxMemory())
+                .reorderWindowSize(getReorderWindowSize())
+                .reorderWindowSeconds(getReorderWindowSeconds())
+                .aggregateForks(isAggregateForks())
+                .collapseSuccess(isCollapseSuccess())
+                .foldParameterizedTests(isFoldParameterizedTests())
+                .maxInvocationLines(getMaxInvocationLines())
                 .theme(getTheme())
                 .build();
     }
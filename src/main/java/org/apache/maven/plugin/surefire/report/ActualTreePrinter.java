@@ -5,24 +5,37 @@ import org.apache.maven.surefire.shared.lang3.StringUtils;
 import org.apache.maven.surefire.shared.utils.logging.MessageBuilder;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.LongStream;
+import java.util.Map;
 
 import static org.apache.maven.plugin.surefire.report.TextFormatter.abbreviateName;
+import static org.apache.maven.plugin.surefire.report.TextFormatter.appendElapsedTime;
 import static org.apache.maven.surefire.shared.utils.StringUtils.isBlank;
 import static org.apache.maven.surefire.shared.utils.logging.MessageUtils.buffer;
 
 public class ActualTreePrinter {
     private final Theme theme;
+    private final TreePrefixes prefixes;
     private final Node tree;
     private final ConsoleLogger consoleLogger;
     private final ReporterOptions options;
+    private final DetailBudget detailBudget;
+    private final StringBuilder line = new StringBuilder(256);
+    private final MessageBuilder lineBuilder = buffer(line);
+    private boolean forced;
 
     public ActualTreePrinter(Node node, ConsoleLogger consoleLogger, ReporterOptions options) {
         this.tree = node;
         this.consoleLogger = consoleLogger;
         this.options = options;
         this.theme = options.getTheme();
+        this.prefixes = TreePrefixes.of(theme);
+        this.detailBudget = new DetailBudget(options);
     }
 
     public void printAndRemoveChild() {
@@ -39,134 +52,286 @@ public class ActualTreePrinter {
         tree.getParent().removeBranch(tree);
     }
 
-    private void print(Node node) {
-        printClass(node);
-        node.wrappedReportEntries.forEach(i -> printTestFormated(node, i));
-        node.branches.forEach(this::print);
+    /**
+     * Streaming counterpart of {@link #printAndRemoveChild()}, called on every event of the tree's classes.
+     * <p>
+     * Prints, in tree order, every class whose lines can no longer change: it is known whether it is the
+     * last of its siblings, whether it has nested classes, and all of its tests were reported. JUnit runs the
+     * tests of a class before its nested classes, so the latter holds once the class or any class nested in
+     * it completed. Printed entries are released, finished subtrees removed, and the tree itself once done.
+     * A class printed before it completes has no elapsed time yet, so none is shown.
+     */
+    public void printReadyAndRemoveFinished() {
+        if (printReady(tree)) removeChild();
     }
 
-    private void printTestFormated(Node node, WrappedReportEntry testResult) {
-        if (testResult.isErrorOrFailure()) {
-            printFailure(node, testResult);
-        } else if (testResult.isSkipped()) {
-            printSkipped(node, testResult);
-        } else if (isSuccessPrintAllowed() && testResult.isSucceeded()) {
-            printSuccess(node, testResult);
+    /**
+     * Prints whatever is left of the tree, ready or not, marking the classes that never completed,
+     * and removes it.
+     */
+    public void printIncompleteAndRemoveChild() {
+        forced = true;
+        printReady(tree);
+        removeChild();
+    }
+
+    /**
+     * Prints the ready part of {@code subtree} in tree order, walking it with an explicit stack so deep trees
+     * cannot overflow the call stack. A finished branch is removed once its last line is printed. Returns
+     * whether the whole subtree is finished.
+     */
+    private boolean printReady(Node subtree) {
+        if (!printIfReady(subtree)) return false;
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Iterator<Node>> branches = new ArrayDeque<>();
+        nodes.push(subtree);
+        branches.push(subtree.getBranches().iterator());
+        while (!nodes.isEmpty()) {
+            if (branches.peek().hasNext()) {
+                Node branch = branches.peek().next();
+                if (!printIfReady(branch)) return false;
+                nodes.push(branch);
+                branches.push(branch.getBranches().iterator());
+            } else {
+                Node node = nodes.pop();
+                branches.pop();
+                if (!forced && !node.isCompleted()) return false;
+                if (!nodes.isEmpty()) nodes.peek().removeBranch(node);
+            }
         }
-        printDetails(testResult);
+        return true;
     }
 
-    private boolean isSuccessPrintAllowed() {
-        return !options.isHideResultsOnSuccess();
+    private boolean printIfReady(Node node) {
+        if (node.isPrinted()) return true;
+        if (!forced && !isReadyToPrint(node)) return false;
+        if (node == tree && options.isPrintBlankLineBetweenTests()) println("");
+        print(NodeLayout.ofNode(node));
+        node.wrappedReportEntries.clear();
+        node.setPrinted(true);
+        return true;
     }
 
-    private void printSuccess(Node node, WrappedReportEntry testResult) {
-        printTestResult(buffer().success(theme.successful() + abbreviateName(testResult.getReportName())), node, testResult);
+    private boolean isReadyToPrint(Node node) {
+        if (node.getDisplayReportEntry() == null) return false;
+        boolean lastnessKnown = node == tree || node.getParent().isCompleted() || node.hasNextSibling();
+        boolean branchesKnown = node.isCompleted() || node.hasBranches();
+        boolean testsKnown = node.isCompleted() || hasCompletedBranch(node);
+        return lastnessKnown && branchesKnown && testsKnown;
     }
 
-    private void printTestResult(MessageBuilder builder, Node node, WrappedReportEntry testResult) {
-        println(getTestPrefix(node, testResult)
-                .a(builder)
-                .a(" - " + testResult.elapsedTimeAsString())
-                .toString());
+    private static boolean hasCompletedBranch(Node node) {
+        Deque<Node> pending = new ArrayDeque<>(node.branches());
+        while (!pending.isEmpty()) {
+            Node branch = pending.pop();
+            if (branch.isCompleted()) return true;
+            branch.branches().forEach(pending::push);
+        }
+        return false;
     }
 
-    private void println(String message) {
-        consoleLogger.info(message);
+    private void print(Node node) {
+        if (!options.isCollapseSuccess()) {
+            NodeLayout.of(node).forEach(this::print);
+            return;
+        }
+        Map<Node, Long> passing = passingSubtrees(node);
+        for (NodeLayout layout : NodeLayout.of(node, passing::containsKey)) {
+            Long tests = passing.get(layout.getNode());
+            if (tests != null) {
+                printCollapsed(layout, tests);
+            } else {
+                print(layout);
+            }
+        }
     }
 
-    private boolean isLastMissingBranch(Node node) {
-        Node rootChild = Node.getRoot().branches.get(0); // first after ROOT
-        if (rootChild.hasBranches()) {
-            Node rootChildLastChild = getLastItem(rootChild.branches); // last branch in root child
-            return node.getParent(rootChildLastChild.getName()).isPresent() || node == rootChildLastChild;
-        } else {
-            return true;
+    /**
+     * The number of tests of every subtree of {@code tree} whose tests all passed, by subtree, in a single
+     * pass from the leaves up.
+     */
+    private static Map<Node, Long> passingSubtrees(Node tree) {
+        List<Node> nodes = new ArrayList<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(tree);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            nodes.add(node);
+            node.branches().forEach(pending::push);
+        }
+        Map<Node, Long> passing = new IdentityHashMap<>();
+        // every branch comes after its parent
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            Node node = nodes.get(i);
+            if (!node.isCompleted()) continue;
+            long tests = 0;
+            boolean passed = true;
+            for (WrappedReportEntry entry : node.wrappedReportEntries) {
+                passed &= entry.isSucceeded();
+                tests++;
+            }
+            if (node.wrappedReportEntries instanceof SampledReportEntries) {
+                tests += ((SampledReportEntries) node.wrappedReportEntries).getUnlistedTests();
+            }
+            for (Node branch : node.branches()) {
+                Long branchTests = passing.get(branch);
+                passed &= branchTests != null;
+                if (branchTests != null) tests += branchTests;
+            }
+            if (passed) passing.put(node, tests);
         }
+        return passing;
     }
 
-    private static <T> T getLastItem(List<T> list) {
-        return list.get(list.size() - 1);
+    /**
+     * Prints a subtree whose tests all passed as a single class line with its number of tests.
+     */
+    private void printCollapsed(NodeLayout layout, long tests) {
+        newLine(prefixes.heading(layout, false))
+                .strong(cleanReportName(layout.getNode()))
+                .a(" ")
+                .success("(" + tests + (tests == 1 ? " test" : " tests") + " passed)");
+        printElapsedTime(layout.getNode().getClassReportEntry());
     }
 
-    private MessageBuilder getTestPrefix(Node node, WrappedReportEntry testResult) {
-        MessageBuilder builder = buffer();
-        if (isLastMissingBranch(node))
-            builder.a(theme.blank());
-        else
-            builder.a(theme.pipe());
-        if (node.getDepth() > 1) {
-            LongStream.rangeClosed(0, node.getDepth() - 3)
-                    .forEach(i -> builder.a(theme.blank()));
-            if (node.getParent().hasBranches() && node.hasBranches()
-            ) {
-                builder.a(theme.pipe());
+    private void print(NodeLayout layout) {
+        printClass(layout);
+        List<WrappedReportEntry> entries = layout.getNode().wrappedReportEntries;
+        if (entries.isEmpty()) return;
+        String entryPrefix = prefixes.test(layout, false);
+        String lastEntryPrefix = prefixes.test(layout, true);
+        if (options.isFoldParameterizedTests()) {
+            printFolded(entryPrefix, lastEntryPrefix, InvocationGroups.fold(entries));
+            return;
+        }
+        int lastIndex = entries.size() - 1;
+        for (int i = 0; i <= lastIndex; i++) {
+            printTestFormated(i == lastIndex ? lastEntryPrefix : entryPrefix, entries.get(i));
+        }
+    }
+
+    private void printFolded(String entryPrefix, String lastEntryPrefix, List<Object> lines) {
+        int lastIndex = lines.size() - 1;
+        for (int i = 0; i <= lastIndex; i++) {
+            String prefix = i == lastIndex ? lastEntryPrefix : entryPrefix;
+            Object line = lines.get(i);
+            if (line instanceof InvocationGroups.Group) {
+                printGroup(prefix, (InvocationGroups.Group) line);
             } else {
-                builder.a(theme.blank());
+                printTestFormated(prefix, (WrappedReportEntry) line);
             }
         }
-        if (isLastTestToBeEval(node, testResult)) {
-            builder.a(theme.entry());
+    }
+
+    /**
+     * Prints the invocations of a test method as one line, with their results and elapsed times.
+     */
+    private void printGroup(String prefix, InvocationGroups.Group group) {
+        String method = abbreviateName(group.getMethod());
+        if (group.hasFailures()) {
+            newLine(prefix).failure(theme.failed()).failure(method);
+        } else if (group.getSkipped() == group.getInvocations()) {
+            newLine(prefix).warning(theme.skipped()).warning(method);
+        } else if (isSuccessPrintAllowed() || group.getSkipped() > 0) {
+            newLine(prefix).success(theme.successful()).success(method);
         } else {
-            builder.a(theme.end());
+            return;
+        }
+        lineBuilder.a(" - ").a(group.getInvocations()).a(" invocations, ").a(group.getPassed()).a(" passed");
+        if (group.getFailed() > 0) lineBuilder.a(", ").a(group.getFailed()).a(" failed");
+        if (group.getErrors() > 0) lineBuilder.a(", ").a(group.getErrors()).a(group.getErrors() == 1 ? " error" : " errors");
+        if (group.getSkipped() > 0) lineBuilder.a(", ").a(group.getSkipped()).a(" skipped");
+        lineBuilder.a(" - min ");
+        appendElapsedTime(line, group.getMinElapsed());
+        lineBuilder.a(", avg ");
+        appendElapsedTime(line, group.getAvgElapsed());
+        lineBuilder.a(", max ");
+        appendElapsedTime(line, group.getMaxElapsed());
+        lineBuilder.a(", p95 ");
+        appendElapsedTime(line, group.getP95Elapsed());
+        println(line);
+    }
+
+    private void printTestFormated(String prefix, WrappedReportEntry testResult) {
+        if (testResult.isErrorOrFailure()) {
+            printFailure(prefix, testResult);
+        } else if (testResult.isSkipped()) {
+            printSkipped(prefix, testResult);
+        } else if (isSuccessPrintAllowed() && testResult.isSucceeded()) {
+            printSuccess(prefix, testResult);
         }
-        return builder;
+        printDetails(testResult);
     }
 
-    private static boolean isLastTestToBeEval(Node node, WrappedReportEntry testResult) {
-        return node.wrappedReportEntries.indexOf(testResult) + 1 != node.wrappedReportEntries.size();
+    private boolean isSuccessPrintAllowed() {
+        return !options.isHideResultsOnSuccess();
     }
 
-    private void printClass(Node node) {
-        MessageBuilder builder = buffer();
-        if (node.getDepth() > 1) {
-            if (node.getDepth() > 2) {
-                if (isLastMissingBranch(node)) builder.a(theme.blank());
-                else builder.a(theme.pipe());
-                LongStream.rangeClosed(0, node.getDepth() - 4)
-                        .forEach(i -> builder.a(theme.blank()));
-                builder.a(theme.end());
-            } else {
-                if (isLastMissingBranch(node)) builder.a(theme.end());
-                else builder.a(theme.entry());
-            }
-        }
-        if (node.hasBranches()) {
-            builder.a(theme.down());
+    private void printSuccess(String prefix, WrappedReportEntry testResult) {
+        newLine(prefix)
+                .success(theme.successful())
+                .success(abbreviateName(testResult.getReportName()));
+        printElapsedTime(testResult);
+    }
+
+    /**
+     * Starts a new line in the reused line buffer. Styled parts must always be followed by a plain
+     * {@link MessageBuilder#a(CharSequence)} call before appending to {@link #line} directly,
+     * so any pending color reset is written first.
+     */
+    private MessageBuilder newLine(String prefix) {
+        line.setLength(0);
+        return lineBuilder.a(prefix);
+    }
+
+    private void printElapsedTime(WrappedReportEntry entry) {
+        lineBuilder.a(" - ");
+        appendElapsedTime(line, entry.getElapsed());
+        println(line);
+    }
+
+    private void println(CharSequence message) {
+        if (consoleLogger instanceof LineSink) {
+            ((LineSink) consoleLogger).appendLine(message);
         } else {
-            builder.a(theme.dash());
+            consoleLogger.info(message.toString());
         }
+    }
 
-        builder.strong(cleanReportName(node));
-        builder.a(" - " + node.getClassReportEntry().elapsedTimeAsString());
+    private static String detailFileName(WrappedReportEntry testResult, String detail) {
+        if (testResult.getName() == null) return testResult.getSourceName() + "-" + detail;
+        return testResult.getSourceName() + "." + testResult.getName() + "-" + detail;
+    }
 
-        println(builder.toString());
+    private void printClass(NodeLayout layout) {
+        Node node = layout.getNode();
+        MessageBuilder builder = newLine(prefixes.heading(layout, layout.hasBranches()));
+        builder.strong(cleanReportName(node));
+        if (node.isCompleted()) {
+            printElapsedTime(node.getClassReportEntry());
+        } else {
+            if (forced) builder.a(" - ").warning("not completed");
+            builder.a("");
+            println(line);
+        }
     }
 
     private String cleanReportName(Node node) {
-        if (node.getParent().getClassReportEntry() != null &&
-                node.getClassReportEntry().getReportNameWithGroup().startsWith(node.getParent().getClassReportEntry().getReportNameWithGroup())
-        ) {
-            int stringSizeToRemove = node.getParent().getClassReportEntry().getReportNameWithGroup().length() + 1;
-            return node.getClassReportEntry().getReportNameWithGroup().substring(stringSizeToRemove);
+        if (node.getDisplayReportEntry() == null) return node.getName();
+        String reportName = node.getDisplayReportEntry().getReportNameWithGroup();
+        WrappedReportEntry parentEntry = node.getParent().getDisplayReportEntry();
+        if (parentEntry != null && reportName.startsWith(parentEntry.getReportNameWithGroup())) {
+            return reportName.substring(parentEntry.getReportNameWithGroup().length() + 1);
         } else {
-            return node.getClassReportEntry().getReportNameWithGroup();
+            return reportName;
         }
     }
 
     private void printDetails(WrappedReportEntry testResult) {
-        boolean isSuccess = testResult.getReportEntryType() == ReportEntryType.SUCCESS;
-        boolean isError = testResult.getReportEntryType() == ReportEntryType.ERROR;
-        boolean isFailure = testResult.getReportEntryType() == ReportEntryType.FAILURE;
-
-        boolean printStackTrace = options.isPrintStacktraceOnError() && isError
-                || options.isPrintStacktraceOnFailure() && isFailure;
-        boolean printStdOut = options.isPrintStdoutOnSuccess() && isSuccess
-                || options.isPrintStdoutOnError() && isError
-                || options.isPrintStdoutOnFailure() && isFailure;
-        boolean printStdErr = options.isPrintStderrOnSuccess() && isSuccess
-                || options.isPrintStderrOnError() && isError
-                || options.isPrintStderrOnFailure() && isFailure;
+        ReportEntryType type = testResult.getReportEntryType();
+        boolean printStackTrace = isStackTracePrinted(options, type);
+        boolean printStdOut = isStdoutPrinted(options, type);
+        boolean printStdErr = isStderrPrinted(options, type);
 
         if (printStackTrace || printStdOut || printStdErr) {
             printPreambleDetails(testResult);
@@ -176,10 +341,36 @@ public class ActualTreePrinter {
         }
     }
 
-    private void printSkipped(Node node, WrappedReportEntry testResult) {
-        printTestResult(buffer()
-                .warning(theme.skipped() + getSkippedReport(testResult))
-                .warning(getSkippedMessage(testResult)), node, testResult);
+    /**
+     * Whether any details (stack trace, stdout or stderr) are printed below a test of this type.
+     */
+    static boolean isDetailsPrinted(ReporterOptions options, ReportEntryType type) {
+        return isStackTracePrinted(options, type) || isStdoutPrinted(options, type) || isStderrPrinted(options, type);
+    }
+
+    private static boolean isStackTracePrinted(ReporterOptions options, ReportEntryType type) {
+        return options.isPrintStacktraceOnError() && type == ReportEntryType.ERROR
+                || options.isPrintStacktraceOnFailure() && type == ReportEntryType.FAILURE;
+    }
+
+    private static boolean isStdoutPrinted(ReporterOptions options, ReportEntryType type) {
+        return options.isPrintStdoutOnSuccess() && type == ReportEntryType.SUCCESS
+                || options.isPrintStdoutOnError() && type == ReportEntryType.ERROR
+                || options.isPrintStdoutOnFailure() && type == ReportEntryType.FAILURE;
+    }
+
+    private static boolean isStderrPrinted(ReporterOptions options, ReportEntryType type) {
+        return options.isPrintStderrOnSuccess() && type == ReportEntryType.SUCCESS
+                || options.isPrintStderrOnError() && type == ReportEntryType.ERROR
+                || options.isPrintStderrOnFailure() && type == ReportEntryType.FAILURE;
+    }
+
+    private void printSkipped(String prefix, WrappedReportEntry testResult) {
+        newLine(prefix)
+                .warning(theme.skipped())
+                .warning(getSkippedReport(testResult))
+                .warning(getSkippedMessage(testResult));
+        printElapsedTime(testResult);
     }
 
     private String getSkippedReport(WrappedReportEntry testResult) {
@@ -210,7 +401,7 @@ public class ActualTreePrinter {
         println("");
         println(buffer().strong("Standard out").toString());
         try {
-            testResult.getStdout().writeTo(System.out);
+            detailBudget.print(testResult.getStdout(), detailFileName(testResult, "stdout"), this::println);
         } catch (final IOException ignored) {
         }
     }
@@ -219,7 +410,7 @@ public class ActualTreePrinter {
         println("");
         println(buffer().strong("Standard error").toString());
         try {
-            testResult.getStdErr().writeTo(System.err);
+            detailBudget.print(testResult.getStdErr(), detailFileName(testResult, "stderr"), this::println);
         } catch (final IOException ignored) {
         }
     }
@@ -229,14 +420,19 @@ public class ActualTreePrinter {
         println(buffer().strong("Stack trace").toString());
         String stackTrace = testResult.getStackTrace(false);
         if (stackTrace != null && !StringUtils.isBlank(stackTrace)) {
-            println(testResult.getStackTrace(false));
+            try {
+                detailBudget.print(stackTrace, detailFileName(testResult, "stacktrace"), this::println);
+            } catch (final IOException ignored) {
+            }
         } else {
             println("[No stack trace available]");
         }
     }
 
-    private void printFailure(Node node, WrappedReportEntry testResult) {
-        printTestResult(buffer()
-                .failure(theme.failed() + abbreviateName(testResult.getReportName())), node, testResult);
+    private void printFailure(String prefix, WrappedReportEntry testResult) {
+        newLine(prefix)
+                .failure(theme.failed())
+                .failure(abbreviateName(testResult.getReportName()));
+        printElapsedTime(testResult);
     }
 }
@@ -0,0 +1,145 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Writes rendered {@link OutputBlock}s to the console on one dedicated thread, so a slow console
+ * does not hold up the thread reporting the fork events.
+ * <p>
+ * Blocks are written in the order they were submitted. The writer thread is started on demand,
+ * stops after being idle for {@link #IDLE_MILLIS}, and a shutdown hook writes whatever is still
+ * queued when the JVM exits. When the queue is full the {@link QueueFullPolicy} decides whether the
+ * caller waits or writes the queued blocks and its own on its thread.
+ */
+final class AsyncOutputWriter {
+
+    static final long IDLE_MILLIS = 1000;
+
+    private final ConsoleLogger consoleLogger;
+    private final int capacity;
+    private final QueueFullPolicy policy;
+    private final Queue<OutputBlock> queue = new ArrayDeque<>();
+    /**
+     * Held while taking blocks out of the queue and writing them, so nobody can write in between.
+     */
+    private final Object writeLock = new Object();
+    private Thread writer;
+    private Thread shutdownHook;
+
+    AsyncOutputWriter(ConsoleLogger consoleLogger, int capacity, QueueFullPolicy policy) {
+        this.consoleLogger = consoleLogger;
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    void submit(OutputBlock block) {
+        synchronized (this) {
+            while (queue.size() >= capacity && policy == QueueFullPolicy.BLOCK) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (queue.size() < capacity) {
+                enqueue(block);
+                return;
+            }
+        }
+        write(block);
+    }
+
+    /**
+     * Writes {@code block} on the calling thread, after everything still queued.
+     */
+    void write(OutputBlock block) {
+        synchronized (writeLock) {
+            writeQueued();
+            block.writeTo(consoleLogger);
+            OutputBlock.flush(consoleLogger);
+        }
+    }
+
+    /**
+     * Writes the blocks submitted so far and flushes the console, returning once they are written: the writer
+     * thread finishes the blocks it took, and the calling thread writes the ones still queued.
+     */
+    void flush() {
+        synchronized (writeLock) {
+            writeQueued();
+            OutputBlock.flush(consoleLogger);
+        }
+    }
+
+    /**
+     * Writes everything still queued on the calling thread.
+     */
+    void drain() {
+        synchronized (writeLock) {
+            writeQueued();
+        }
+    }
+
+    private void enqueue(OutputBlock block) {
+        queue.add(block);
+        if (writer == null) startWriter();
+        notifyAll();
+    }
+
+    private void startWriter() {
+        writer = new Thread(this::run, "surefire-tree-writer");
+        writer.setDaemon(true);
+        writer.start();
+        if (shutdownHook == null) {
+            shutdownHook = new Thread(this::drain, "surefire-tree-writer-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    private void run() {
+        while (true) {
+            drain();
+            synchronized (this) {
+                if (queue.isEmpty()) {
+                    try {
+                        wait(IDLE_MILLIS);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+                if (queue.isEmpty()) {
+                    stopWriter();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void stopWriter() {
+        writer = null;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            shutdownHook = null;
+        } catch (IllegalStateException ignored) {
+            // already shutting down, the hook drains the queue
+        }
+    }
+
+    private void writeQueued() {
+        boolean written = false;
+        for (OutputBlock block = poll(); block != null; block = poll()) {
+            block.writeTo(consoleLogger);
+            written = true;
+        }
+        if (written) OutputBlock.flush(consoleLogger);
+    }
+
+    private synchronized OutputBlock poll() {
+        OutputBlock block = queue.poll();
+        if (block != null) notifyAll();
+        return block;
+    }
+}
@@ -0,0 +1,211 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
+
+import java.io.BufferedReader;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Console logger that holds the info lines printed until {@link #flush()}, one tree, and writes them as
+ * a single block, so the trees of modules built in parallel ({@code mvn -T}) are never interleaved.
+ * <p>
+ * A block of up to {@code maxMemory} bytes is kept in memory and written as one multi-line message, which
+ * nothing else logged can come between. A larger one spills to a temporary file and is read back in messages
+ * of that size, under a lock shared by the reporters loaded with this class. That lock keeps the other trees
+ * out of a spilled block, but not what the rest of the build logs meanwhile, so a spilled block is only
+ * contiguous with respect to other trees. Other levels write the pending block first.
+ */
+final class AtomicBlockLogger implements ConsoleLogger, LineSink, Flushable {
+
+    private static final Object WRITE_LOCK = new Object();
+
+    private final ConsoleLogger delegate;
+    private final int maxChars;
+    private final Path spillDirectory;
+    private StringBuilder buffer = new StringBuilder(256);
+    /**
+     * Whether the buffer holds a line, an empty one included, so empty lines are kept.
+     */
+    private boolean pendingLine;
+    /**
+     * Lines of a block over the memory cap, each followed by a line separator.
+     */
+    private Path spill;
+    private Writer spillWriter;
+    private boolean spillFailed;
+
+    AtomicBlockLogger(ConsoleLogger delegate, int maxMemory) {
+        this(delegate, maxMemory, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    AtomicBlockLogger(ConsoleLogger delegate, int maxMemory, Path spillDirectory) {
+        this.delegate = delegate;
+        // a char takes two bytes
+        this.maxChars = Math.max(1, maxMemory / 2);
+        this.spillDirectory = spillDirectory;
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (spill != null) {
+            writeSpill();
+        } else if (pendingLine) {
+            synchronized (WRITE_LOCK) {
+                delegate.info(buffer.toString());
+            }
+        }
+        pendingLine = false;
+        // the next block tries to spill again, the failure may have been temporary
+        spillFailed = false;
+        if (buffer.capacity() > maxChars) {
+            buffer = new StringBuilder(256);
+        } else {
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Same as {@link #info(String)}, but copies the characters straight from the given line.
+     */
+    @Override
+    public synchronized void appendLine(CharSequence line) {
+        if (spillWriter != null) {
+            try {
+                spillWriter.append(line);
+                spillWriter.write(System.lineSeparator());
+                return;
+            } catch (IOException e) {
+                spillFailed = true;
+                writeSpill();
+            }
+        }
+        if (pendingLine) buffer.append(System.lineSeparator());
+        buffer.append(line);
+        pendingLine = true;
+        if (buffer.length() > maxChars && !spillFailed) startSpill();
+    }
+
+    private void startSpill() {
+        try {
+            spill = Files.createTempFile(spillDirectory, "surefire-tree-", ".txt");
+            spillWriter = Files.newBufferedWriter(spill, UTF_8);
+            spillWriter.append(buffer).append(System.lineSeparator());
+            buffer.setLength(0);
+            pendingLine = false;
+        } catch (IOException e) {
+            // keep the block in memory, over the limit, rather than break it
+            spillFailed = true;
+            deleteSpill();
+        }
+    }
+
+    /**
+     * Writes the spilled block in messages of at most {@code maxChars} characters, then what is buffered since.
+     */
+    private void writeSpill() {
+        synchronized (WRITE_LOCK) {
+            StringBuilder message = new StringBuilder(Math.min(maxChars, 64 * 1024));
+            boolean messageLines = false;
+            try {
+                spillWriter.close();
+                try (BufferedReader reader = Files.newBufferedReader(spill, UTF_8)) {
+                    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                        if (messageLines && message.length() + line.length() > maxChars) {
+                            delegate.info(message.toString());
+                            message.setLength(0);
+                            messageLines = false;
+                        }
+                        if (messageLines) message.append(System.lineSeparator());
+                        message.append(line);
+                        messageLines = true;
+                    }
+                }
+            } catch (IOException e) {
+                if (messageLines) message.append(System.lineSeparator());
+                message.append("Could not read the spilled output back: ").append(e);
+                messageLines = true;
+            }
+            if (pendingLine) {
+                if (messageLines) message.append(System.lineSeparator());
+                message.append(buffer);
+                messageLines = true;
+            }
+            if (messageLines) delegate.info(message.toString());
+        }
+        buffer.setLength(0);
+        pendingLine = false;
+        deleteSpill();
+    }
+
+    private void deleteSpill() {
+        try {
+            if (spillWriter != null) spillWriter.close();
+            if (spill != null) Files.deleteIfExists(spill);
+        } catch (IOException ignored) {
+        }
+        spill = null;
+        spillWriter = null;
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+
+    @Override
+    public synchronized void debug(String message) {
+        flush();
+        delegate.debug(message);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return delegate.isInfoEnabled();
+    }
+
+    @Override
+    public void info(String message) {
+        appendLine(message);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isWarnEnabled();
+    }
+
+    @Override
+    public synchronized void warning(String message) {
+        flush();
+        delegate.warning(message);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isErrorEnabled();
+    }
+
+    @Override
+    public synchronized void error(String message) {
+        flush();
+        delegate.error(message);
+    }
+
+    @Override
+    public synchronized void error(String message, Throwable t) {
+        flush();
+        delegate.error(message, t);
+    }
+
+    @Override
+    public synchronized void error(Throwable t) {
+        flush();
+        delegate.error(t);
+    }
+}
@@ -0,0 +1,108 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
+
+import java.io.Flushable;
+
+/**
+ * Console logger that collects info lines into one reusable buffer and hands them
+ * to the delegate as a single multi-line message, either on {@link #flush()} or
+ * whenever the buffer reaches {@link #CHUNK_SIZE} characters.
+ * <p>
+ * Other levels flush the pending lines first, so the output order is kept.
+ */
+public class BatchingConsoleLogger implements ConsoleLogger, LineSink, Flushable {
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_RETAINED_CAPACITY = 4 * CHUNK_SIZE;
+
+    private final ConsoleLogger delegate;
+    private StringBuilder buffer = new StringBuilder(CHUNK_SIZE);
+    /**
+     * Whether the buffer holds a line, an empty one included, so empty lines are kept.
+     */
+    private boolean pendingLine;
+
+    public BatchingConsoleLogger(ConsoleLogger delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (!pendingLine) return;
+        delegate.info(buffer.toString());
+        pendingLine = false;
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new StringBuilder(CHUNK_SIZE);
+        } else {
+            buffer.setLength(0);
+        }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+
+    @Override
+    public synchronized void debug(String message) {
+        flush();
+        delegate.debug(message);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return delegate.isInfoEnabled();
+    }
+
+    @Override
+    public void info(String message) {
+        appendLine(message);
+    }
+
+    /**
+     * Same as {@link #info(String)}, but copies the characters straight from the given line,
+     * so a caller reusing its own buffer does not need to create a string per line.
+     */
+    @Override
+    public synchronized void appendLine(CharSequence line) {
+        if (pendingLine) buffer.append(System.lineSeparator());
+        buffer.append(line);
+        pendingLine = true;
+        if (buffer.length() >= CHUNK_SIZE) flush();
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isWarnEnabled();
+    }
+
+    @Override
+    public synchronized void warning(String message) {
+        flush();
+        delegate.warning(message);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isErrorEnabled();
+    }
+
+    @Override
+    public synchronized void error(String message) {
+        flush();
+        delegate.error(message);
+    }
+
+    @Override
+    public synchronized void error(String message, Throwable t) {
+        flush();
+        delegate.error(message, t);
+    }
+
+    @Override
+    public synchronized void error(Throwable t) {
+        flush();
+        delegate.error(t);
+    }
+}
@@ -0,0 +1,136 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.surefire.api.report.RunMode;
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test entries of a node, kept in primitive columns instead of full {@link WrappedReportEntry} objects,
+ * which hold on to their captured stdout/stderr streams, stack trace writer and formatter.
+ * <p>
+ * Only what the tree needs is kept: the type, the elapsed time and the names and skip message, whose
+ * characters go into a single pool (a name repeated from the previous entry, like the class name, is
+ * stored once). An entry whose details will be printed, according to the options, is the only one kept
+ * in full, and its column points to it. {@link #get(int)} rebuilds a light entry from the columns,
+ * so a buffered entry costs a few dozen bytes plus its names, whatever the test printed.
+ */
+final class CompactReportEntries extends AbstractList<WrappedReportEntry> {
+
+    private static final int NONE = -1;
+    private static final int NO_ELAPSED = Integer.MIN_VALUE;
+    private static final ReportEntryType[] TYPES = ReportEntryType.values();
+
+    private final ReporterOptions options;
+    private final List<WrappedReportEntry> detailed = new ArrayList<>(0);
+    private byte[] types = new byte[4];
+    private int[] elapsed = new int[4];
+    private int[] sourceNames = new int[4];
+    private int[] sourceTexts = new int[4];
+    private int[] names = new int[4];
+    private int[] nameTexts = new int[4];
+    private int[] messages = new int[4];
+    private int[] details = new int[4];
+    private int size;
+
+    /**
+     * String pool: string {@code i} spans {@code chars[starts[i]]} to {@code chars[starts[i + 1]]}.
+     */
+    private char[] chars = new char[64];
+    private int[] starts = new int[8];
+    private int strings;
+
+    CompactReportEntries(ReporterOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public boolean add(WrappedReportEntry entry) {
+        if (size == types.length) grow();
+        ReportEntryType type = entry.getReportEntryType();
+        Integer elapsedTime = entry.getElapsed();
+        types[size] = (byte) type.ordinal();
+        elapsed[size] = elapsedTime == null ? NO_ELAPSED : elapsedTime;
+        sourceNames[size] = store(entry.getSourceName(), sourceNames);
+        sourceTexts[size] = store(entry.getSourceText(), sourceTexts);
+        names[size] = store(entry.getName(), names);
+        nameTexts[size] = store(entry.getNameText(), nameTexts);
+        messages[size] = type == ReportEntryType.SKIPPED ? store(entry.getMessage(), messages) : NONE;
+        if (ActualTreePrinter.isDetailsPrinted(options, type)) {
+            details[size] = detailed.size();
+            detailed.add(entry);
+        } else {
+            details[size] = NONE;
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public WrappedReportEntry get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (details[index] != NONE) return detailed.get(details[index]);
+        SimpleReportEntry entry = new SimpleReportEntry(RunMode.NORMAL_RUN, null,
+                load(sourceNames[index]), load(sourceTexts[index]), load(names[index]), load(nameTexts[index]),
+                load(messages[index]));
+        return new WrappedReportEntry(entry, TYPES[types[index]],
+                elapsed[index] == NO_ELAPSED ? null : elapsed[index], null, null);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        strings = 0;
+        detailed.clear();
+        modCount++;
+    }
+
+    private void grow() {
+        int capacity = size * 2;
+        types = Arrays.copyOf(types, capacity);
+        elapsed = Arrays.copyOf(elapsed, capacity);
+        sourceNames = Arrays.copyOf(sourceNames, capacity);
+        sourceTexts = Arrays.copyOf(sourceTexts, capacity);
+        names = Arrays.copyOf(names, capacity);
+        nameTexts = Arrays.copyOf(nameTexts, capacity);
+        messages = Arrays.copyOf(messages, capacity);
+        details = Arrays.copyOf(details, capacity);
+    }
+
+    /**
+     * Stores {@code value} in the pool, unless it equals the value of the same column in the previous entry.
+     */
+    private int store(String value, int[] column) {
+        if (value == null) return NONE;
+        if (size > 0 && column[size - 1] != NONE && equals(column[size - 1], value)) return column[size - 1];
+        int start = starts[strings];
+        int end = start + value.length();
+        if (end > chars.length) chars = Arrays.copyOf(chars, Math.max(end, chars.length * 2));
+        value.getChars(0, value.length(), chars, start);
+        if (strings + 2 > starts.length) starts = Arrays.copyOf(starts, starts.length * 2);
+        starts[++strings] = end;
+        return strings - 1;
+    }
+
+    private boolean equals(int string, String value) {
+        int start = starts[string];
+        if (starts[string + 1] - start != value.length()) return false;
+        for (int i = 0; i < value.length(); i++) {
+            if (chars[start + i] != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private String load(int string) {
+        return string == NONE ? null : new String(chars, starts[string], starts[string + 1] - starts[string]);
+    }
+}
@@ -1,29 +1,80 @@
 package org.apache.maven.plugin.surefire.report;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
 import org.apache.maven.surefire.api.report.TestSetReportEntry;
 
-public class ConsoleTreeReporter extends ConsoleReporter {
-    private final ReporterOptions options;
+public class ConsoleTreeReporter extends ConsoleReporter implements AutoCloseable {
+    private final Node tree;
+    private final TreePrinter treePrinter;
+    private final NestedTestsWatchdog watchdog;
 
     public ConsoleTreeReporter(ConsoleLogger logger, ReporterOptions options) {
+        this(logger, options, null);
+    }
+
+    /**
+     * A reporter of one fork whose trees are written by {@code aggregator}, shared with the reporters of the other
+     * forks, see {@link ForkAggregator}.
+     */
+    public ConsoleTreeReporter(ConsoleLogger logger, ReporterOptions options, ForkAggregator aggregator) {
         super(logger, options.isUsePhrasedClassNameInRunning(), options.isUsePhrasedClassNameInTestCaseSummary());
-        this.options = options;
+        this.tree = Node.createRoot(entryLists(options));
+        this.treePrinter = new TreePrinter(logger, options, aggregator);
+        this.watchdog = NestedTestsWatchdog.isEnabled(options) ? new NestedTestsWatchdog(tree, treePrinter, options) : null;
+    }
+
+    private static Supplier<List<WrappedReportEntry>> entryLists(ReporterOptions options) {
+        Supplier<List<WrappedReportEntry>> lists = options.isCompactEntries() ? () -> new CompactReportEntries(options) : ArrayList::new;
+        if (options.getMaxInvocationLines() <= 0) return lists;
+        return () -> new SampledReportEntries(options.getMaxInvocationLines(), lists.get());
     }
 
     @Override
     public void testSetStarting(TestSetReportEntry report) {
-        new TestReportHandler(report).prepare();
+        handle(report.getSourceName(), () -> new TestReportHandler(tree, report).prepare(treePrinter));
     }
 
     @Override
     public void testSetCompleted(WrappedReportEntry report, TestSetStats testSetStats, List<String> testResults) {
-        new TestReportHandler(report, testSetStats).print(getTreePrinter());
+        handle(report.getSourceName(), () -> new TestReportHandler(tree, report, testSetStats).print(treePrinter));
+    }
+
+    private void handle(String sourceName, Runnable event) {
+        if (watchdog != null) {
+            watchdog.handle(sourceName, event);
+        } else {
+            event.run();
+        }
     }
 
-    private TreePrinter getTreePrinter() {
-        return new TreePrinter(getConsoleLogger(), options);
+    @Override
+    public void reset() {
+        super.reset();
+        treePrinter.flush();
+        tree.getNestedClassBuffers().evictPrinted(tree);
+    }
+
+    /**
+     * Prints the trees still waiting for classes that never completed and releases everything this reporter
+     * holds, for JVMs running many builds. Surefire never calls it: what {@link #reset()} releases is all
+     * that completed trees leave behind.
+     */
+    @Override
+    public void close() {
+        if (watchdog != null) {
+            watchdog.close();
+        } else {
+            for (Node root : tree.getBranches()) {
+                // trees held by the reorder window may have been printed along with an earlier one
+                if (tree.getBranchNode(root.getName()).orElse(null) == root) treePrinter.printIncompleteTests(root);
+            }
+            tree.getNestedClassBuffers().evictPrinted(tree);
+        }
+        treePrinter.close();
+        tree.clearTree();
     }
 }
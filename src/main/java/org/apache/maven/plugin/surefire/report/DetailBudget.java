@@ -0,0 +1,330 @@
+package org.apache.maven.plugin.surefire.report;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.maven.surefire.shared.utils.logging.MessageUtils.buffer;
+
+/**
+ * Line and byte budget for the details printed below a test: captured stdout, stderr and stack trace.
+ * <p>
+ * Details within the budget are printed as they are. Otherwise only the first {@code detailHeadLines} and
+ * the last {@code detailTailLines} lines are printed, and the full content is written to a file in
+ * {@code detailSpillDirectory}, or else in the reports directory of the plugin.
+ * <p>
+ * The captured output can only be read from the start, so it is streamed once to count its lines (reading
+ * at most {@code maxDetailBytes}) and once more to print the head, keep the tail in a fixed ring of lines
+ * and copy everything to the file, named after the test and numbered.
+ */
+final class DetailBudget {
+
+    private static final int MAX_FILE_NAME_LENGTH = 200;
+    /**
+     * Numbers the spilled files of the whole run, as cut, repeated and rerun tests can share a name.
+     */
+    private static final AtomicLong SPILLS = new AtomicLong();
+
+    private final int maxLines;
+    private final long maxBytes;
+    private final int headLines;
+    private final int tailLines;
+    private final ReporterOptions options;
+
+    DetailBudget(ReporterOptions options) {
+        this.maxLines = options.getMaxDetailLines();
+        this.maxBytes = options.getMaxDetailBytes();
+        this.headLines = Math.max(0, options.getDetailHeadLines());
+        this.tailLines = Math.max(0, options.getDetailTailLines());
+        this.options = options;
+    }
+
+    private Path spillDirectory() {
+        return options.getDetailSpillDirectory() != null
+                ? Paths.get(options.getDetailSpillDirectory()) : options.getReportsDirectory().toPath();
+    }
+
+    boolean isUnlimited() {
+        return maxLines <= 0 && maxBytes <= 0;
+    }
+
+    void print(Utf8RecodingDeferredFileOutputStream stream, String name, Consumer<CharSequence> println)
+            throws IOException {
+        if (!exceeds(stream)) {
+            try (LineSplittingOutputStream lines = new LineSplittingOutputStream(println)) {
+                stream.writeTo(lines);
+            }
+            return;
+        }
+        Path spillDirectory = spillDirectory();
+        Path file = spillDirectory.resolve(fileName(name, SPILLS.incrementAndGet()));
+        Truncation truncation = new Truncation(println);
+        OutputStream spill = openSpill(file);
+        try (LineSplittingOutputStream lines = new LineSplittingOutputStream(truncation)) {
+            stream.writeTo(spill == null ? lines : new TeeOutputStream(lines, spill));
+        } finally {
+            if (spill != null) spill.close();
+        }
+        truncation.finish(spill == null ? null : file, spillDirectory);
+    }
+
+    void print(String text, String name, Consumer<CharSequence> println) throws IOException {
+        if (!exceeds(text)) {
+            println.accept(text);
+            return;
+        }
+        Path spillDirectory = spillDirectory();
+        Path file = spillDirectory.resolve(fileName(name, SPILLS.incrementAndGet()));
+        Truncation truncation = new Truncation(println);
+        byte[] bytes = text.getBytes(UTF_8);
+        try (LineSplittingOutputStream lines = new LineSplittingOutputStream(truncation)) {
+            lines.write(bytes, 0, bytes.length);
+        }
+        OutputStream spill = openSpill(file);
+        if (spill != null) {
+            try {
+                spill.write(bytes);
+            } finally {
+                spill.close();
+            }
+        }
+        truncation.finish(spill == null ? null : file, spillDirectory);
+    }
+
+    private boolean exceeds(Utf8RecodingDeferredFileOutputStream stream) throws IOException {
+        if (isUnlimited()) return false;
+        if (maxBytes > 0 && stream.getByteCount() > maxBytes) return true;
+        if (maxLines <= 0) return false;
+        LineCounter counter = new LineCounter();
+        try (LineSplittingOutputStream lines = new LineSplittingOutputStream(counter)) {
+            stream.writeTo(lines);
+        }
+        return counter.lines > maxLines;
+    }
+
+    private boolean exceeds(String text) {
+        if (isUnlimited()) return false;
+        if (maxBytes > 0 && (text.length() > maxBytes || text.getBytes(UTF_8).length > maxBytes)) return true;
+        if (maxLines <= 0) return false;
+        LineCounter counter = new LineCounter();
+        try (LineSplittingOutputStream lines = new LineSplittingOutputStream(counter)) {
+            byte[] bytes = text.getBytes(UTF_8);
+            lines.write(bytes, 0, bytes.length);
+        }
+        return counter.lines > maxLines;
+    }
+
+    private static OutputStream openSpill(Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            return new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The file to spill the details called {@code name} to: the name with unsafe characters replaced, cut so the
+     * number of the spill still fits in {@link #MAX_FILE_NAME_LENGTH}.
+     */
+    static String fileName(String name, long spill) {
+        String suffix = "-" + spill + ".txt";
+        return sanitize(name, MAX_FILE_NAME_LENGTH - suffix.length()) + suffix;
+    }
+
+    private static String sanitize(String name, int maxLength) {
+        StringBuilder sanitized = new StringBuilder(Math.min(name.length(), maxLength));
+        for (int i = 0; i < name.length() && sanitized.length() < maxLength; i++) {
+            char c = name.charAt(i);
+            boolean allowed = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                    || c == '.' || c == '-' || c == '_' || c == '$';
+            sanitized.append(allowed ? c : '_');
+        }
+        return sanitized.toString();
+    }
+
+    private static final class LineCounter implements Consumer<CharSequence> {
+        private long lines;
+
+        @Override
+        public void accept(CharSequence line) {
+            lines++;
+        }
+    }
+
+    /**
+     * Prints the head lines right away and keeps the latest tail lines in a ring of reused builders. With a byte
+     * budget, head and tail share it, half each when both have lines, and the line that goes over it is cut.
+     */
+    private final class Truncation implements Consumer<CharSequence> {
+        private final Consumer<CharSequence> println;
+        private final StringBuilder[] tail = new StringBuilder[tailLines];
+        private final long tailBytes;
+        private long headBytes;
+        private boolean inHead;
+        private long lines;
+        private long tailCount;
+        private long printedLines;
+        private long printedBytes;
+        private long totalBytes;
+
+        private Truncation(Consumer<CharSequence> println) {
+            this.println = println;
+            if (maxBytes <= 0) {
+                headBytes = Long.MAX_VALUE;
+                tailBytes = Long.MAX_VALUE;
+            } else {
+                headBytes = tailLines == 0 ? maxBytes : headLines == 0 ? 0 : maxBytes / 2;
+                tailBytes = maxBytes - headBytes;
+            }
+            inHead = headLines > 0 && headBytes > 0;
+        }
+
+        @Override
+        public void accept(CharSequence line) {
+            int bytes = utf8Length(line, 0, line.length());
+            totalBytes += bytes;
+            lines++;
+            if (inHead) {
+                int end = prefixEnd(line, headBytes);
+                if (end > 0 || line.length() == 0) {
+                    boolean whole = end == line.length();
+                    int printed = whole ? bytes : utf8Length(line, 0, end);
+                    println.accept(whole ? line : line.subSequence(0, end));
+                    headBytes -= printed;
+                    printedBytes += printed;
+                    printedLines++;
+                }
+                inHead = end == line.length() && lines < headLines && headBytes > 0;
+            } else if (tail.length > 0) {
+                int slot = (int) (tailCount++ % tail.length);
+                if (tail[slot] == null) tail[slot] = new StringBuilder();
+                tail[slot].setLength(0);
+                tail[slot].append(line);
+            }
+        }
+
+        private void finish(Path file, Path spillDirectory) {
+            // the tail is the latest lines within the byte budget, the first of them may be cut
+            long kept = Math.min(tail.length, tailCount);
+            long first = tailCount;
+            long remaining = tailBytes;
+            int firstStart = 0;
+            for (long line = tailCount - 1; line >= tailCount - kept; line--) {
+                StringBuilder text = tail[(int) (line % tail.length)];
+                long bytes = utf8Length(text, 0, text.length());
+                if (bytes <= remaining) {
+                    remaining -= bytes;
+                    first = line;
+                    continue;
+                }
+                int start = suffixStart(text, remaining);
+                if (start < text.length()) {
+                    first = line;
+                    firstStart = start;
+                }
+                break;
+            }
+            long tailPrinted = 0;
+            for (long line = first; line < tailCount; line++) {
+                StringBuilder text = tail[(int) (line % tail.length)];
+                int start = line == first ? firstStart : 0;
+                tailPrinted += utf8Length(text, start, text.length());
+            }
+            long omittedLines = lines - printedLines - (tailCount - first);
+            long omittedBytes = totalBytes - printedBytes - tailPrinted;
+            String where = file != null
+                    ? "full output in " + file.toAbsolutePath()
+                    : "full output could not be written to " + spillDirectory.toAbsolutePath();
+            println.accept(buffer().warning("[... " + omittedLines + " lines omitted (" + omittedBytes + " bytes), "
+                    + where + " ...]").toString());
+            for (long line = first; line < tailCount; line++) {
+                StringBuilder text = tail[(int) (line % tail.length)];
+                println.accept(line == first && firstStart > 0 ? text.subSequence(firstStart, text.length()) : text);
+            }
+        }
+    }
+
+    /**
+     * Number of bytes of the characters {@code from} to {@code to} of {@code text} encoded in UTF-8.
+     */
+    private static int utf8Length(CharSequence text, int from, int to) {
+        int bytes = 0;
+        for (int i = from; i < to; i += charCount(text, i)) {
+            bytes += utf8Width(text, i);
+        }
+        return bytes;
+    }
+
+    /**
+     * End of the longest start of {@code text} within {@code maxBytes}, never inside a surrogate pair.
+     */
+    private static int prefixEnd(CharSequence text, long maxBytes) {
+        long bytes = 0;
+        int end = 0;
+        while (end < text.length() && bytes + utf8Width(text, end) <= maxBytes) {
+            bytes += utf8Width(text, end);
+            end += charCount(text, end);
+        }
+        return end;
+    }
+
+    /**
+     * Start of the longest end of {@code text} within {@code maxBytes}, never inside a surrogate pair.
+     */
+    private static int suffixStart(CharSequence text, long maxBytes) {
+        long bytes = 0;
+        int start = text.length();
+        while (start > 0) {
+            int previous = start - 1;
+            if (previous > 0 && Character.isLowSurrogate(text.charAt(previous))
+                    && Character.isHighSurrogate(text.charAt(previous - 1))) {
+                previous--;
+            }
+            if (bytes + utf8Width(text, previous) > maxBytes) break;
+            bytes += utf8Width(text, previous);
+            start = previous;
+        }
+        return start;
+    }
+
+    private static int charCount(CharSequence text, int index) {
+        return Character.isHighSurrogate(text.charAt(index)) && index + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(index + 1)) ? 2 : 1;
+    }
+
+    private static int utf8Width(CharSequence text, int index) {
+        char c = text.charAt(index);
+        if (c < 0x80) return 1;
+        if (c < 0x800) return 2;
+        return charCount(text, index) == 2 ? 4 : 3;
+    }
+
+    private static final class TeeOutputStream extends OutputStream {
+        private final OutputStream first;
+        private final OutputStream second;
+
+        private TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
+
+/**
+ * Shared by the {@link ConsoleTreeReporter}s of the forks of one test run ({@code forkCount > 1}), so their
+ * trees come out as one stream instead of each fork writing to the console on its own.
+ * <p>
+ * Every fork builds and renders its trees on its own thread, without taking any lock shared with the other
+ * forks, and hands each completed top-level tree to one {@link AsyncOutputWriter} as a block, in the order
+ * they completed. The only point of contention is adding a block to the queue of the writer.
+ */
+public final class ForkAggregator {
+
+    private final ConsoleLogger consoleLogger;
+    private final AsyncOutputWriter writer;
+
+    public ForkAggregator(ConsoleLogger consoleLogger, ReporterOptions options) {
+        this.consoleLogger = TreePrinter.outputLogger(consoleLogger, options);
+        this.writer = new AsyncOutputWriter(this.consoleLogger, options.getAsyncQueueSize(), options.getAsyncQueueFullPolicy());
+    }
+
+    ConsoleLogger getConsoleLogger() {
+        return consoleLogger;
+    }
+
+    AsyncOutputWriter getWriter() {
+        return writer;
+    }
+}
@@ -0,0 +1,188 @@
+package org.apache.maven.plugin.surefire.report;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The tests of a class with the invocations of each parameterized (or dynamic) test method folded together,
+ * built in a single pass over the entries.
+ * <p>
+ * An invocation is an entry whose name ends with its index, like {@code add(int, int)[3]}, and its method is
+ * the name without the index. A method run more than once becomes a {@link Group}, placed where its first
+ * invocation was, which counts the invocations by result, keeps their elapsed times for min/avg/max/p95,
+ * and keeps only the invocations that failed or ended with an error. Other tests stay as they are.
+ * <p>
+ * When the entries are {@link SampledReportEntries}, the entry telling about the passed invocations left out of
+ * a sample is added to the counts and times of its group instead. The p95 is then estimated, each sampled passed
+ * invocation standing for its share of all passed invocations.
+ */
+final class InvocationGroups {
+
+    private InvocationGroups() {
+    }
+
+    /**
+     * Folds {@code entries}, returning for each line either a {@link WrappedReportEntry} or a {@link Group}.
+     */
+    static List<Object> fold(List<WrappedReportEntry> entries) {
+        // entries that are not invocations get a key of their own, so they keep their place
+        Map<Object, Group> groups = new LinkedHashMap<>();
+        SampledReportEntries sampled = entries instanceof SampledReportEntries ? (SampledReportEntries) entries : null;
+        for (WrappedReportEntry entry : entries) {
+            SampledReportEntries.Sample sample = sampled == null ? null : sampled.sampleOmittedBy(entry);
+            if (sample != null) {
+                groups.computeIfAbsent(sample.getMethod(), k -> new Group(sample.getMethod())).omit(sample);
+                continue;
+            }
+            String method = methodOf(entry.getName());
+            Object key = method == null ? new Object() : method;
+            groups.computeIfAbsent(key, k -> new Group(method)).add(entry);
+        }
+        List<Object> lines = new ArrayList<>(groups.size());
+        for (Group group : groups.values()) {
+            if (group.getInvocations() == 1) {
+                lines.add(group.first);
+            } else {
+                lines.add(group);
+                lines.addAll(group.failures);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * The method of an invocation named {@code name}, or {@code null} when it is not an invocation.
+     */
+    static String methodOf(String name) {
+        if (name == null || !name.endsWith("]")) return null;
+        int start = name.lastIndexOf('[');
+        if (start <= 0 || start == name.length() - 2) return null;
+        for (int i = start + 1; i < name.length() - 1; i++) {
+            if (!Character.isDigit(name.charAt(i))) return null;
+        }
+        return name.substring(0, start);
+    }
+
+    static final class Group {
+        private final String method;
+        private WrappedReportEntry first;
+        private final List<WrappedReportEntry> failures = new ArrayList<>();
+        private int invocations;
+        private int failed;
+        private int errors;
+        private int skipped;
+        private long omitted;
+        private long totalElapsed;
+        private int minElapsed = Integer.MAX_VALUE;
+        private int maxElapsed;
+        private int[] passedElapsed = new int[8];
+        private int passed;
+        private int[] otherElapsed = new int[8];
+
+        private Group(String method) {
+            this.method = method;
+        }
+
+        private void add(WrappedReportEntry entry) {
+            if (first == null) first = entry;
+            if (entry.getReportEntryType() == ReportEntryType.FAILURE) failed++;
+            if (entry.getReportEntryType() == ReportEntryType.ERROR) errors++;
+            if (entry.isSkipped()) skipped++;
+            if (entry.isErrorOrFailure()) failures.add(entry);
+            int time = entry.getElapsed() == null ? 0 : entry.getElapsed();
+            if (entry.isSucceeded()) {
+                if (passed == passedElapsed.length) passedElapsed = Arrays.copyOf(passedElapsed, passed * 2);
+                passedElapsed[passed++] = time;
+            } else {
+                int other = invocations - passed;
+                if (other == otherElapsed.length) otherElapsed = Arrays.copyOf(otherElapsed, other * 2);
+                otherElapsed[other] = time;
+            }
+            invocations++;
+            totalElapsed += time;
+            minElapsed = Math.min(minElapsed, time);
+            maxElapsed = Math.max(maxElapsed, time);
+        }
+
+        /**
+         * Adds the passed invocations left out of {@code sample}, whose sampled ones are the passed entries added.
+         */
+        private void omit(SampledReportEntries.Sample sample) {
+            omitted += sample.getOmitted();
+            totalElapsed += sample.getOmittedElapsed();
+            minElapsed = Math.min(minElapsed, sample.getMinOmittedElapsed());
+            maxElapsed = Math.max(maxElapsed, sample.getMaxOmittedElapsed());
+        }
+
+        String getMethod() {
+            return method;
+        }
+
+        long getInvocations() {
+            return invocations + omitted;
+        }
+
+        long getPassed() {
+            return getInvocations() - failed - errors - skipped;
+        }
+
+        int getFailed() {
+            return failed;
+        }
+
+        int getErrors() {
+            return errors;
+        }
+
+        int getSkipped() {
+            return skipped;
+        }
+
+        boolean hasFailures() {
+            return !failures.isEmpty();
+        }
+
+        int getMinElapsed() {
+            return minElapsed;
+        }
+
+        int getMaxElapsed() {
+            return maxElapsed;
+        }
+
+        int getAvgElapsed() {
+            return (int) Math.round((double) totalElapsed / getInvocations());
+        }
+
+        /**
+         * The 95th percentile of the elapsed times, by the nearest-rank method, each passed entry counting
+         * for the passed invocations left out as well.
+         */
+        int getP95Elapsed() {
+            int[] passedTimes = Arrays.copyOf(passedElapsed, passed);
+            int[] otherTimes = Arrays.copyOf(otherElapsed, invocations - passed);
+            Arrays.sort(passedTimes);
+            Arrays.sort(otherTimes);
+            double passedWeight = passed == 0 ? 0 : (double) (passed + omitted) / passed;
+            double rank = Math.ceil(0.95 * getInvocations());
+            double count = 0;
+            int p = 0;
+            int o = 0;
+            int time = 0;
+            while (p < passedTimes.length || o < otherTimes.length) {
+                if (o == otherTimes.length || p < passedTimes.length && passedTimes[p] <= otherTimes[o]) {
+                    time = passedTimes[p++];
+                    count += passedWeight;
+                } else {
+                    time = otherTimes[o++];
+                    count++;
+                }
+                if (count >= rank - 1e-9) break;
+            }
+            return time;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.apache.maven.plugin.surefire.report;
+
+/**
+ * Console output that can take a line straight from the printer's reused buffer,
+ * without a string being created for it first.
+ */
+interface LineSink {
+
+    void appendLine(CharSequence line);
+}
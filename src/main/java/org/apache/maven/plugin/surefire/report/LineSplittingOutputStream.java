@@ -0,0 +1,100 @@
+package org.apache.maven.plugin.surefire.report;
+
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Decodes UTF-8 output of the tests and hands it over line by line, so it can go through the same
+ * console logger as the tree. Only fixed size buffers are used, whatever the amount of output:
+ * lines longer than {@link #MAX_LINE_LENGTH} characters are handed over in several parts.
+ * <p>
+ * The line passed to the consumer is reused, it must be copied if kept.
+ */
+final class LineSplittingOutputStream extends OutputStream {
+
+    static final int MAX_LINE_LENGTH = 8 * 1024;
+
+    private final Consumer<CharSequence> lineConsumer;
+    private final CharsetDecoder decoder = UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(8 * 1024);
+    private final CharBuffer chars = CharBuffer.allocate(8 * 1024);
+    private final StringBuilder line = new StringBuilder(MAX_LINE_LENGTH);
+    private boolean afterCarriageReturn;
+    private boolean closed;
+
+    LineSplittingOutputStream(Consumer<CharSequence> lineConsumer) {
+        this.lineConsumer = lineConsumer;
+    }
+
+    @Override
+    public void write(int b) {
+        if (!bytes.hasRemaining()) decode(false);
+        bytes.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            if (!bytes.hasRemaining()) decode(false);
+            int count = Math.min(len, bytes.remaining());
+            bytes.put(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Hands over the last line even when it has no line terminator.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        decode(true);
+        while (decoder.flush(chars) == CoderResult.OVERFLOW) split();
+        split();
+        if (line.length() > 0) emit();
+    }
+
+    private void decode(boolean endOfInput) {
+        // through Buffer, as the ByteBuffer and CharBuffer overrides of JDK 9+ do not exist on Java 8
+        ((Buffer) bytes).flip();
+        while (decoder.decode(bytes, chars, endOfInput) == CoderResult.OVERFLOW) split();
+        split();
+        bytes.compact();
+    }
+
+    private void split() {
+        ((Buffer) chars).flip();
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (c == '\n') {
+                if (!afterCarriageReturn) emit();
+                afterCarriageReturn = false;
+            } else if (c == '\r') {
+                emit();
+                afterCarriageReturn = true;
+            } else {
+                afterCarriageReturn = false;
+                if (line.length() == MAX_LINE_LENGTH) emit();
+                line.append(c);
+            }
+        }
+        ((Buffer) chars).clear();
+    }
+
+    private void emit() {
+        lineConsumer.accept(line);
+        line.setLength(0);
+    }
+}
@@ -0,0 +1,43 @@
+package org.apache.maven.plugin.surefire.report;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What a tree buffers for the top-level classes waiting for their nested classes, keyed by top-level class:
+ * the classes that started, and the class and test entries of the ones that completed.
+ * <p>
+ * Owned by the root {@link Node} of a tree, so every reporter has its own, and modules reporting at the same
+ * time in one JVM (e.g. {@code mvn -T 8}) never see each other's classes, even with the same names.
+ */
+final class NestedClassBuffers {
+
+    final Map<String, Set<String>> classNames = new ConcurrentHashMap<>();
+    final Map<String, List<WrappedReportEntry>> classEntries = new ConcurrentHashMap<>();
+    final Map<String, List<WrappedReportEntry>> testEntries = new ConcurrentHashMap<>();
+
+    /**
+     * Forgets the nested classes buffered for {@code sourceRootName}, once its tree was printed.
+     */
+    void evict(String sourceRootName) {
+        classNames.remove(sourceRootName);
+        classEntries.remove(sourceRootName);
+        testEntries.remove(sourceRootName);
+    }
+
+    /**
+     * Forgets the nested classes buffered for the top-level classes no longer in {@code tree}, once printed
+     * some other way than by the completion of their last class, e.g. by the watchdog.
+     */
+    void evictPrinted(Node tree) {
+        classNames.keySet().removeIf(rootName -> !tree.findNode(rootName).isPresent());
+        classEntries.keySet().removeIf(rootName -> !tree.findNode(rootName).isPresent());
+        testEntries.keySet().removeIf(rootName -> !tree.findNode(rootName).isPresent());
+    }
+
+    boolean isEmpty() {
+        return classNames.isEmpty() && classEntries.isEmpty() && testEntries.isEmpty();
+    }
+}
@@ -0,0 +1,237 @@
+package org.apache.maven.plugin.surefire.report;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints the trees of top-level classes that stay buffered, so their results do not silently disappear
+ * and their entries are not kept forever, e.g. when a {@code @Nested} class is filtered out or a fork crashes.
+ * <p>
+ * A tree is printed anyway, with the classes that never completed marked, when nothing happened to its classes
+ * for {@code nestedTestsTimeoutSeconds}, when it buffers more than {@code maxBufferedNestedEntries} test entries,
+ * or when the JVM exits while its reporter is still reachable. The time threshold is also checked by a shared timer
+ * while trees are pending, as events may stop altogether, and so is the time limit of the reorder window while it
+ * holds trees back. Without any of these limits, see {@link #isEnabled(ReporterOptions)}, reporters do without
+ * a watchdog.
+ */
+final class NestedTestsWatchdog {
+
+    private static final char $ = '$';
+    private static final ScheduledThreadPoolExecutor TIMER = timer();
+    /**
+     * Shutdown hooks of watchdogs collected while their hook was added.
+     */
+    private static final ReferenceQueue<NestedTestsWatchdog> COLLECTED = new ReferenceQueue<>();
+
+    private final Node tree;
+    private final TreePrinter treePrinter;
+    private final long timeoutNanos;
+    private final int maxBufferedEntries;
+    private final long reorderNanos;
+    /**
+     * Top-level classes still in the tree, with the time of their last event, in arrival order.
+     */
+    private final Map<String, Long> pending = new LinkedHashMap<>();
+    private final ShutdownHook shutdownHook = new ShutdownHook(this);
+    private boolean shutdownHookAdded;
+    private ScheduledFuture<?> timer;
+
+    NestedTestsWatchdog(Node tree, TreePrinter treePrinter, ReporterOptions options) {
+        this.tree = tree;
+        this.treePrinter = treePrinter;
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(0, options.getNestedTestsTimeoutSeconds()));
+        this.maxBufferedEntries = Math.max(0, options.getMaxBufferedNestedEntries());
+        this.reorderNanos = TimeUnit.SECONDS.toNanos(Math.max(0, options.getReorderWindowSeconds()));
+        removeCollectedHooks();
+    }
+
+    /**
+     * Whether {@code options} set a limit for the watchdog to enforce, the time limit of the reorder window included.
+     * Every reorder window has one, 10 seconds unless set, as held trees would otherwise wait for a class that never
+     * completes until the reporter is closed, which surefire never does.
+     */
+    static boolean isEnabled(ReporterOptions options) {
+        return options.getNestedTestsTimeoutSeconds() > 0 || options.getMaxBufferedNestedEntries() > 0
+                || options.getReorderWindowSeconds() > 0;
+    }
+
+    /**
+     * Handles an event of the class {@code sourceName}, never at the same time as a check of the timer.
+     */
+    synchronized void handle(String sourceName, Runnable event) {
+        event.run();
+        activity(sourceName);
+    }
+
+    private void activity(String sourceName) {
+        int nestedStart = sourceName.indexOf($);
+        String rootName = nestedStart < 0 ? sourceName : sourceName.substring(0, nestedStart);
+        if (tree.findNode(rootName).isPresent()) {
+            pending.put(rootName, System.nanoTime());
+        } else {
+            pending.remove(rootName);
+        }
+        check();
+    }
+
+    synchronized void check() {
+        long now = System.nanoTime();
+        for (Map.Entry<String, Long> entry : new ArrayList<>(pending.entrySet())) {
+            Optional<Node> root = tree.findNode(entry.getKey());
+            if (!root.isPresent()) {
+                pending.remove(entry.getKey());
+            } else if (timeoutNanos > 0 && now - entry.getValue() > timeoutNanos
+                    || maxBufferedEntries > 0 && bufferedEntries(root.get()) > maxBufferedEntries) {
+                print(entry.getKey(), root.get());
+            }
+        }
+        treePrinter.printHeldTests(tree);
+        updateSchedule();
+    }
+
+    /**
+     * Prints every pending tree, as at the end of the run.
+     */
+    synchronized void printAll() {
+        for (String rootName : new ArrayList<>(pending.keySet())) {
+            tree.findNode(rootName).ifPresent(root -> print(rootName, root));
+        }
+        pending.clear();
+        treePrinter.drain();
+        updateSchedule();
+    }
+
+    /**
+     * Prints every pending tree and releases everything, leaving neither a shutdown hook nor a timer behind.
+     */
+    synchronized void close() {
+        printAll();
+        tree.getNestedClassBuffers().evictPrinted(tree);
+    }
+
+    private void print(String rootName, Node root) {
+        treePrinter.printIncompleteTests(root);
+        tree.getNestedClassBuffers().evict(rootName);
+        pending.remove(rootName);
+    }
+
+    private static int bufferedEntries(Node root) {
+        int entries = 0;
+        Deque<Node> nodes = new ArrayDeque<>();
+        nodes.push(root);
+        while (!nodes.isEmpty()) {
+            Node node = nodes.pop();
+            entries += node.wrappedReportEntries.size();
+            node.branches().forEach(nodes::push);
+        }
+        return entries;
+    }
+
+    private void updateSchedule() {
+        boolean active = !pending.isEmpty();
+        if (active != shutdownHookAdded) {
+            try {
+                if (active) {
+                    Runtime.getRuntime().addShutdownHook(shutdownHook.thread);
+                } else {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook.thread);
+                }
+                shutdownHookAdded = active;
+            } catch (IllegalStateException ignored) {
+                // already shutting down
+            }
+        }
+        boolean timed = active && timeoutNanos > 0 || reorderNanos > 0 && treePrinter.hasHeldTests();
+        if (timed && timer == null) {
+            long limit = timeoutNanos > 0 && reorderNanos > 0 ? Math.min(timeoutNanos, reorderNanos)
+                    : Math.max(timeoutNanos, reorderNanos);
+            long period = Math.max(TimeUnit.MILLISECONDS.toNanos(100), limit / 2);
+            TimerCheck check = new TimerCheck(this);
+            timer = TIMER.scheduleWithFixedDelay(check, period, period, TimeUnit.NANOSECONDS);
+            check.future = timer;
+        } else if (!timed && timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+    }
+
+    /**
+     * Removes the shutdown hooks left by watchdogs collected without being closed, as surefire never closes
+     * its reporters, so a JVM running many builds does not keep them.
+     */
+    private static void removeCollectedHooks() {
+        for (Reference<?> hook = COLLECTED.poll(); hook != null; hook = COLLECTED.poll()) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(((ShutdownHook) hook).thread);
+            } catch (IllegalStateException ignored) {
+                // already shutting down
+            }
+        }
+    }
+
+    /**
+     * Prints the pending trees when the JVM exits. It refers to the watchdog weakly, so the hook of a reporter
+     * that is dropped without being closed does not keep its trees alive.
+     */
+    private static final class ShutdownHook extends WeakReference<NestedTestsWatchdog> implements Runnable {
+        private final Thread thread = new Thread(this, "surefire-tree-watchdog-shutdown");
+
+        ShutdownHook(NestedTestsWatchdog watchdog) {
+            super(watchdog, COLLECTED);
+        }
+
+        @Override
+        public void run() {
+            NestedTestsWatchdog watchdog = get();
+            if (watchdog != null) watchdog.printAll();
+        }
+    }
+
+    /**
+     * Checks the watchdog on the timer. It refers to the watchdog weakly too, and cancels itself once the watchdog
+     * is collected.
+     */
+    private static final class TimerCheck extends WeakReference<NestedTestsWatchdog> implements Runnable {
+        private volatile ScheduledFuture<?> future;
+
+        TimerCheck(NestedTestsWatchdog watchdog) {
+            super(watchdog);
+        }
+
+        @Override
+        public void run() {
+            NestedTestsWatchdog watchdog = get();
+            if (watchdog != null) {
+                watchdog.check();
+            } else if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * A timer whose thread stops once no tree is pending, so it does not keep this class loader alive
+     * in a JVM running many builds.
+     */
+    private static ScheduledThreadPoolExecutor timer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "surefire-tree-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setKeepAliveTime(1, TimeUnit.SECONDS);
+        timer.allowCoreThreadTimeOut(true);
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+}
@@ -1,29 +1,66 @@
 package org.apache.maven.plugin.surefire.report;
 
 import org.apache.maven.surefire.api.report.ReportEntry;
-import org.apache.maven.surefire.api.report.SimpleReportEntry;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Test class tree owned by a single {@link ConsoleTreeReporter}.
+ * <p>
+ * Branches are kept in concurrent maps so several listeners can add classes to the
+ * same tree while another one prints and removes a completed branch. Each node only
+ * locks its own bins, so there is no tree-wide lock.
+ * <p>
+ * Every node is also registered in a flat index shared by the whole tree, keyed by
+ * its full source name ({@code Outer$Inner$Deeper}), so finding or adding a class
+ * is a single hash lookup instead of a walk from the root. The {@link NestedClassBuffers}
+ * of the tree are shared the same way, so nothing is shared between trees.
+ */
 public class Node {
-    private static final Node ROOT = new Node("ROOT", 0);
-    final List<Node> branches = new ArrayList<>();
-    private final Map<String, Node> branchMap = new HashMap<>();
+    private static final String ROOT_NAME = "ROOT";
+    private static final char $ = '$';
+    private final ConcurrentSkipListMap<Long, Node> branches = new ConcurrentSkipListMap<>();
+    private final Map<String, Node> branchMap = new ConcurrentHashMap<>();
+    private final Map<String, Node> index;
+    private final NestedClassBuffers nestedClassBuffers;
+    private final Supplier<List<WrappedReportEntry>> entryLists;
+    private final AtomicLong branchSequence = new AtomicLong();
     private final Node parent;
     private final String name;
+    private final String sourceName;
     private final int depth;
-    public final List<WrappedReportEntry> wrappedReportEntries = new ArrayList<>();
-    private WrappedReportEntry classReportEntry;
+    private final long order;
+    public final List<WrappedReportEntry> wrappedReportEntries;
+    private volatile WrappedReportEntry classReportEntry;
+    private volatile WrappedReportEntry startingReportEntry;
+    private volatile boolean printed;
 
-    public static void clearTree() {
-        ROOT.branches.clear();
-        ROOT.branchMap.clear();
+    public static Node createRoot() {
+        return createRoot(ArrayList::new);
+    }
+
+    /**
+     * Creates a tree whose nodes keep their test entries in the lists supplied by {@code entryLists},
+     * e.g. {@link CompactReportEntries}.
+     */
+    static Node createRoot(Supplier<List<WrappedReportEntry>> entryLists) {
+        return new Node(ROOT_NAME, 0, entryLists);
+    }
+
+    public void clearTree() {
+        branches().forEach(this::removeBranch);
     }
 
     public String getName() {
@@ -34,38 +71,106 @@ public class Node {
         return depth;
     }
 
-    public static Node getRoot() {
-        return ROOT;
+    public Node getRoot() {
+        Node root = this;
+        while (root.parent != null) {
+            root = root.parent;
+        }
+        return root;
     }
 
     public boolean hasBranches() {
        return !branches.isEmpty();
     }
 
+    Collection<Node> branches() {
+        return branches.values();
+    }
+
+    List<Node> getBranches() {
+        return new ArrayList<>(branches.values());
+    }
+
     public void removeBranch(Node branch) {
-        branches.remove(branch);
-        branchMap.remove(branch.name);
+        if (branchMap.remove(branch.name, branch)) {
+            branches.remove(branch.order);
+            unindex(branch);
+        }
     }
 
-    private Node(String name, int nestLevel) {
-        this(name, nestLevel, null);
+    private void unindex(Node branch) {
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(branch);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            index.remove(node.sourceName, node);
+            node.branches().forEach(pending::push);
+        }
     }
 
-    private Node(String name, int depth, Node parent) {
+    private Node(String name, int depth, Supplier<List<WrappedReportEntry>> entryLists) {
         this.name = name;
         this.depth = depth;
-        this.parent = parent;
+        this.parent = null;
+        this.order = 0;
+        this.sourceName = null;
+        this.index = new ConcurrentHashMap<>();
+        this.nestedClassBuffers = new NestedClassBuffers();
+        this.entryLists = entryLists;
+        this.wrappedReportEntries = entryLists.get();
     }
 
     Node(String name, Node parent) {
         this.name = name;
         this.depth = parent.depth + 1;
         this.parent = parent;
+        this.order = parent.branchSequence.getAndIncrement();
+        this.sourceName = parent.pathOf(name);
+        this.index = parent.index;
+        this.nestedClassBuffers = parent.nestedClassBuffers;
+        this.entryLists = parent.entryLists;
+        this.wrappedReportEntries = entryLists.get();
     }
 
     public Node addNode(ReportEntry reportEntry) {
-        String[] nodes = reportEntry.getSourceName().split("\\$", -1);
-        return addChildren(nodes);
+        return addPath(reportEntry.getSourceName());
+    }
+
+    /**
+     * Returns the node for a {@code $} separated path below this node, creating the
+     * missing part of the path. Known paths cost a single index lookup; unknown ones
+     * resume from the deepest ancestor that is already in the tree.
+     */
+    Node addPath(String path) {
+        Node existing = index.get(pathOf(path));
+        if (existing != null) return existing;
+
+        Node current = this;
+        int start = 0;
+        for (int cut = path.lastIndexOf($); cut >= 0; cut = path.lastIndexOf($, cut - 1)) {
+            Node ancestor = index.get(pathOf(path.substring(0, cut)));
+            if (ancestor != null) {
+                current = ancestor;
+                start = cut + 1;
+                break;
+            }
+        }
+        for (int end = path.indexOf($, start); end >= 0; end = path.indexOf($, start)) {
+            current = current.generateBranch(path.substring(start, end));
+            start = end + 1;
+        }
+        return current.generateBranch(path.substring(start));
+    }
+
+    /**
+     * Looks up a node by its {@code $} separated path below this node.
+     */
+    Optional<Node> findNode(String path) {
+        return Optional.ofNullable(index.get(pathOf(path)));
+    }
+
+    private String pathOf(String path) {
+        return sourceName == null ? path : sourceName + $ + path;
     }
 
     protected Node addChildren(String... nodes) {
@@ -73,21 +178,20 @@ public class Node {
     }
 
     protected Node addChildren(List<String> nodes) {
-        if (nodes.isEmpty()) return this;
-        return getBranchNode(nodes.get(0))
-                .orElseGet(() -> generateBranch(nodes.get(0)))
-                .addChildren(removeFirst(nodes));
+        Node current = this;
+        for (String node : nodes) {
+            current = current.generateBranch(node);
+        }
+        return current;
     }
 
     private Node generateBranch(String name) {
-        Node branch = new Node(name, this);
-        branches.add(branch);
-        branchMap.put(name, branch);
-        return branch;
-    }
-
-    private <T> List<T> removeFirst(List<T> list) {
-        return list.subList(1, list.size());
+        return branchMap.computeIfAbsent(name, key -> {
+            Node branch = new Node(key, this);
+            branches.put(branch.order, branch);
+            index.put(branch.sourceName, branch);
+            return branch;
+        });
     }
 
     boolean containsBranch(String reportName) {
@@ -103,26 +207,34 @@ public class Node {
     }
 
     static Optional<Node> getBranchNode(Node node, List<String> nodePath) {
-        if (nodePath.size() == 1) {
-            return node.getBranchNode(nodePath.get(0));
+        return node.findNode(String.join(String.valueOf($), nodePath));
+    }
+
+    public Optional<Node> getParent(String parentName) {
+        for (Node ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor.getName().equals(parentName)) return Optional.of(ancestor);
         }
-        if (node.getBranchNode(nodePath.get(0)).isPresent())
-            return getBranchNode(node.getBranchNode(nodePath.get(0)).get(), nodePath.subList(1, nodePath.size()));
         return Optional.empty();
     }
 
-    public Optional<Node> getParent(String parentName) {
-        if (parent == null) return Optional.empty();
-        if (parent.getName().equals(parentName)) return Optional.of(parent);
-        return parent.getParent(parentName);
+    /**
+     * Whether no sibling was added after this node, looked up without copying the siblings.
+     */
+    boolean isLastBranch() {
+        if (parent == null) return true;
+        Map.Entry<Long, Node> last = parent.branches.lastEntry();
+        return last == null || last.getValue() == this;
+    }
+
+    /**
+     * Whether a sibling was added after this node and is still in the tree.
+     */
+    boolean hasNextSibling() {
+        return parent != null && parent.branches.higherKey(order) != null;
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (obj instanceof Node)
-            return ((Node) obj).name.equals(this.name);
-        else
-            return false;
+    NestedClassBuffers getNestedClassBuffers() {
+        return nestedClassBuffers;
     }
 
     public Node getParent() {
@@ -136,4 +248,32 @@ public class Node {
     public void setClassReportEntry(WrappedReportEntry classReportEntry) {
         this.classReportEntry = classReportEntry;
     }
+
+    /**
+     * Whether the class of this node has completed, i.e. its class report entry is known.
+     */
+    public boolean isCompleted() {
+        return classReportEntry != null;
+    }
+
+    void setStartingReportEntry(WrappedReportEntry startingReportEntry) {
+        this.startingReportEntry = startingReportEntry;
+    }
+
+    /**
+     * The class report entry once completed, otherwise the entry the class started with,
+     * which already carries its names.
+     */
+    WrappedReportEntry getDisplayReportEntry() {
+        WrappedReportEntry completed = classReportEntry;
+        return completed != null ? completed : startingReportEntry;
+    }
+
+    boolean isPrinted() {
+        return printed;
+    }
+
+    void setPrinted(boolean printed) {
+        this.printed = printed;
+    }
 }
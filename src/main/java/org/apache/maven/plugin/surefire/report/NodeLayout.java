@@ -0,0 +1,105 @@
+package org.apache.maven.plugin.surefire.report;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Drawing metadata of a node inside the subtree being printed.
+ * <p>
+ * Column {@code j} of a line belongs to the ancestor (or the node itself) at depth
+ * {@code j + 2}, and holds a pipe while that ancestor still has siblings below it.
+ * The metadata is computed once per subtree, so every line prefix is built straight
+ * from it without looking at the rest of the tree.
+ */
+final class NodeLayout {
+
+    private final Node node;
+    private final boolean last;
+    private final boolean hasBranches;
+    private final List<Node> branches;
+    private final BitSet continuation;
+
+    private NodeLayout(Node node, boolean last, BitSet continuation) {
+        this(node, last, continuation, false);
+    }
+
+    private NodeLayout(Node node, boolean last, BitSet continuation, boolean collapsed) {
+        this.node = node;
+        this.last = last;
+        this.branches = collapsed || !node.hasBranches() ? Collections.emptyList() : node.getBranches();
+        this.hasBranches = !branches.isEmpty();
+        this.continuation = continuation;
+        if (!last && node.getDepth() > 1) {
+            continuation.set(node.getDepth() - 2);
+        }
+    }
+
+    /**
+     * Lays out {@code subtree} and all its branches, in printing order.
+     */
+    static List<NodeLayout> of(Node subtree) {
+        return of(subtree, node -> false);
+    }
+
+    /**
+     * Lays out {@code subtree} and its branches, in printing order, leaving out the branches of the nodes
+     * that are {@code collapsed}: they are laid out as leaves.
+     */
+    static List<NodeLayout> of(Node subtree, Predicate<Node> collapsed) {
+        List<NodeLayout> layouts = new ArrayList<>();
+        Deque<NodeLayout> pending = new ArrayDeque<>();
+        pending.push(new NodeLayout(subtree, subtree.isLastBranch(), ancestorContinuation(subtree), collapsed.test(subtree)));
+        while (!pending.isEmpty()) {
+            NodeLayout layout = pending.pop();
+            layouts.add(layout);
+            for (int i = layout.branches.size() - 1; i >= 0; i--) {
+                boolean lastBranch = i == layout.branches.size() - 1;
+                Node branch = layout.branches.get(i);
+                pending.push(new NodeLayout(branch, lastBranch, (BitSet) layout.continuation.clone(), collapsed.test(branch)));
+            }
+        }
+        return layouts;
+    }
+
+    /**
+     * Lays out {@code node} alone, for printing it before its branches are known.
+     */
+    static NodeLayout ofNode(Node node) {
+        return new NodeLayout(node, node.isLastBranch(), ancestorContinuation(node));
+    }
+
+    private static BitSet ancestorContinuation(Node node) {
+        BitSet continuation = new BitSet();
+        for (Node ancestor = node.getParent(); ancestor != null && ancestor.getDepth() > 1; ancestor = ancestor.getParent()) {
+            if (!ancestor.isLastBranch()) {
+                continuation.set(ancestor.getDepth() - 2);
+            }
+        }
+        return continuation;
+    }
+
+    Node getNode() {
+        return node;
+    }
+
+    int getDepth() {
+        return node.getDepth();
+    }
+
+    boolean isLast() {
+        return last;
+    }
+
+    boolean hasBranches() {
+        return hasBranches;
+    }
+
+    boolean continues(int column) {
+        return continuation.get(column);
+    }
+}
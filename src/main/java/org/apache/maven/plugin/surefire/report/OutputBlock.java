@@ -0,0 +1,131 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Everything printed for one completed test set, recorded on the thread that rendered it
+ * so it can be written later, in the same order, by {@link AsyncOutputWriter}.
+ * <p>
+ * Info lines share one text buffer; other levels are kept as events placed before the line
+ * they were printed ahead of.
+ */
+final class OutputBlock implements ConsoleLogger, LineSink {
+
+    private final StringBuilder text = new StringBuilder(256);
+    private int[] lineEnds = new int[16];
+    private int lines;
+    private final List<Event> events = new ArrayList<>();
+
+    @Override
+    public void appendLine(CharSequence line) {
+        text.append(line);
+        if (lines == lineEnds.length) lineEnds = Arrays.copyOf(lineEnds, lines * 2);
+        lineEnds[lines++] = text.length();
+    }
+
+    boolean isEmpty() {
+        return lines == 0 && events.isEmpty();
+    }
+
+    void writeTo(ConsoleLogger logger) {
+        int line = 0;
+        for (Event event : events) {
+            writeLines(logger, line, event.beforeLine);
+            line = event.beforeLine;
+            event.action.accept(logger);
+        }
+        writeLines(logger, line, lines);
+    }
+
+    private void writeLines(ConsoleLogger logger, int from, int to) {
+        for (int line = from; line < to; line++) {
+            int start = line == 0 ? 0 : lineEnds[line - 1];
+            if (logger instanceof LineSink) {
+                ((LineSink) logger).appendLine(CharBuffer.wrap(text, start, lineEnds[line]));
+            } else {
+                logger.info(text.substring(start, lineEnds[line]));
+            }
+        }
+    }
+
+    static void flush(ConsoleLogger logger) {
+        if (logger instanceof Flushable) {
+            try {
+                ((Flushable) logger).flush();
+            } catch (final IOException ignored) {
+            }
+        }
+    }
+
+    private void addEvent(Consumer<ConsoleLogger> action) {
+        events.add(new Event(lines, action));
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return true;
+    }
+
+    @Override
+    public void debug(String message) {
+        addEvent(logger -> logger.debug(message));
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return true;
+    }
+
+    @Override
+    public void info(String message) {
+        appendLine(message);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return true;
+    }
+
+    @Override
+    public void warning(String message) {
+        addEvent(logger -> logger.warning(message));
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return true;
+    }
+
+    @Override
+    public void error(String message) {
+        addEvent(logger -> logger.error(message));
+    }
+
+    @Override
+    public void error(String message, Throwable t) {
+        addEvent(logger -> logger.error(message, t));
+    }
+
+    @Override
+    public void error(Throwable t) {
+        addEvent(logger -> logger.error(t));
+    }
+
+    private static final class Event {
+        private final int beforeLine;
+        private final Consumer<ConsoleLogger> action;
+
+        private Event(int beforeLine, Consumer<ConsoleLogger> action) {
+            this.beforeLine = beforeLine;
+            this.action = action;
+        }
+    }
+}
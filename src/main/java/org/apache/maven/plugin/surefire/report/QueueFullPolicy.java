@@ -0,0 +1,17 @@
+package org.apache.maven.plugin.surefire.report;
+
+/**
+ * What the asynchronous output does when a test set completes while its queue is full.
+ */
+public enum QueueFullPolicy {
+
+    /**
+     * Wait until the writer thread makes room in the queue.
+     */
+    BLOCK,
+
+    /**
+     * Write on the calling thread instead, after everything already queued, so the output order is kept.
+     */
+    DEGRADE
+}
@@ -0,0 +1,94 @@
+package org.apache.maven.plugin.surefire.report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the trees of top-level classes that completed before a class started earlier, so trees are printed
+ * in the order their classes started even when JUnit runs them in parallel within a fork.
+ * <p>
+ * The starting order is the order of the branches of the root {@link Node}. The window flushes, printing
+ * what it holds in starting order without waiting any longer, once it holds more than {@code maxTrees} trees
+ * or its oldest tree waited more than {@code maxSeconds}. Zero disables a limit.
+ */
+final class ReorderWindow {
+
+    private final int maxTrees;
+    private final long maxWaitNanos;
+    /**
+     * Completed trees waiting for the trees started before them, with the time they completed.
+     */
+    private final Map<Node, Long> held = new HashMap<>();
+
+    ReorderWindow(int maxTrees, int maxSeconds) {
+        this.maxTrees = Math.max(0, maxTrees);
+        this.maxWaitNanos = TimeUnit.SECONDS.toNanos(Math.max(0, maxSeconds));
+    }
+
+    /**
+     * The window of {@code options}, or {@code null} when neither limit is set. A window always has a time limit,
+     * see {@link NestedTestsWatchdog#isEnabled(ReporterOptions)}.
+     */
+    static ReorderWindow of(ReporterOptions options) {
+        if (options.getReorderWindowSize() <= 0 && options.getReorderWindowSeconds() <= 0) return null;
+        return new ReorderWindow(options.getReorderWindowSize(), options.getReorderWindowSeconds());
+    }
+
+    /**
+     * Whether {@code node} is a top-level class, the only trees whose order the window keeps.
+     */
+    static boolean isTopLevel(Node node) {
+        return node.getParent() != null && node.getParent().getParent() == null;
+    }
+
+    void hold(Node tree) {
+        held.putIfAbsent(tree, System.nanoTime());
+    }
+
+    boolean isEmpty() {
+        return held.isEmpty();
+    }
+
+    /**
+     * Stops holding {@code tree}, e.g. when it is printed anyway, and tells whether it was held.
+     */
+    boolean remove(Node tree) {
+        return held.remove(tree) != null;
+    }
+
+    /**
+     * Takes the held trees of {@code root} that can be printed now, in starting order: those no tree still
+     * running started before, or all of them when the window is full or waited too long.
+     */
+    List<Node> release(Node root) {
+        if (held.isEmpty()) return Collections.emptyList();
+        // trees printed some other way, e.g. by the watchdog, are no longer held
+        held.keySet().removeIf(tree -> root.getBranchNode(tree.getName()).orElse(null) != tree);
+        if (held.isEmpty()) return Collections.emptyList();
+        boolean flush = maxTrees > 0 && held.size() > maxTrees
+                || maxWaitNanos > 0 && System.nanoTime() - oldest() > maxWaitNanos;
+        List<Node> ready = new ArrayList<>();
+        for (Node tree : root.branches()) {
+            if (held.containsKey(tree)) {
+                ready.add(tree);
+            } else if (!flush) {
+                break;
+            }
+            if (ready.size() == held.size()) break;
+        }
+        ready.forEach(held::remove);
+        return ready;
+    }
+
+    private long oldest() {
+        long oldest = Long.MAX_VALUE;
+        for (long completed : held.values()) {
+            oldest = Math.min(oldest, completed);
+        }
+        return oldest;
+    }
+}
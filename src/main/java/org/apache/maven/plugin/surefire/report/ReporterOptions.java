@@ -1,5 +1,8 @@
 package org.apache.maven.plugin.surefire.report;
 
+import java.io.File;
+import java.util.function.Supplier;
+
 public class ReporterOptions {
     private final boolean printStacktraceOnError;
     private final boolean printStacktraceOnFailure;
@@ -14,6 +17,28 @@ public class ReporterOptions {
     private final boolean usePhrasedClassNameInRunning;
     private final boolean usePhrasedClassNameInTestCaseSummary;
     private final boolean printBlankLineBetweenTests;
+    private final boolean batchOutput;
+    private final boolean asyncOutput;
+    private final int asyncQueueSize;
+    private final QueueFullPolicy asyncQueueFullPolicy;
+    private final int maxDetailLines;
+    private final long maxDetailBytes;
+    private final int detailHeadLines;
+    private final int detailTailLines;
+    private final String detailSpillDirectory;
+    private final Supplier<File> reportsDirectory;
+    private final boolean streamNestedTests;
+    private final int nestedTestsTimeoutSeconds;
+    private final int maxBufferedNestedEntries;
+    private final boolean compactEntries;
+    private final boolean atomicOutput;
+    private final int atomicOutputMaxMemory;
+    private final int reorderWindowSize;
+    private final int reorderWindowSeconds;
+    private final boolean aggregateForks;
+    private final boolean collapseSuccess;
+    private final boolean foldParameterizedTests;
+    private final int maxInvocationLines;
 
     private ReporterOptions(Builder builder) {
         this.printStacktraceOnError = builder.printStacktraceOnError;
@@ -29,6 +54,30 @@ public class ReporterOptions {
         this.usePhrasedClassNameInTestCaseSummary = builder.usePhrasedClassNameInTestCaseSummary;
         this.theme = builder.theme != null ? builder.theme : Theme.ASCII;
         this.printBlankLineBetweenTests = builder.printBlankLineBetweenTests;
+        this.batchOutput = builder.batchOutput;
+        this.asyncOutput = builder.asyncOutput;
+        this.asyncQueueSize = builder.asyncQueueSize > 0 ? builder.asyncQueueSize : 256;
+        this.asyncQueueFullPolicy = builder.asyncQueueFullPolicy != null ? builder.asyncQueueFullPolicy : QueueFullPolicy.BLOCK;
+        this.maxDetailLines = builder.maxDetailLines;
+        this.maxDetailBytes = builder.maxDetailBytes;
+        this.detailHeadLines = builder.detailHeadLines;
+        this.detailTailLines = builder.detailTailLines;
+        this.detailSpillDirectory = builder.detailSpillDirectory;
+        this.reportsDirectory = builder.reportsDirectory != null
+                ? builder.reportsDirectory : () -> new File("target", "surefire-reports");
+        this.streamNestedTests = builder.streamNestedTests;
+        this.nestedTestsTimeoutSeconds = builder.nestedTestsTimeoutSeconds;
+        this.maxBufferedNestedEntries = builder.maxBufferedNestedEntries;
+        this.compactEntries = builder.compactEntries;
+        this.atomicOutput = builder.atomicOutput;
+        this.atomicOutputMaxMemory = builder.atomicOutputMaxMemory > 0 ? builder.atomicOutputMaxMemory : 4 * 1024 * 1024;
+        this.reorderWindowSize = builder.reorderWindowSize;
+        this.reorderWindowSeconds = builder.reorderWindowSeconds <= 0 && builder.reorderWindowSize > 0
+                ? 10 : builder.reorderWindowSeconds;
+        this.aggregateForks = builder.aggregateForks;
+        this.collapseSuccess = builder.collapseSuccess;
+        this.foldParameterizedTests = builder.foldParameterizedTests;
+        this.maxInvocationLines = builder.maxInvocationLines;
     }
 
     public static Builder builder() {
@@ -87,6 +136,94 @@ public class ReporterOptions {
         return printBlankLineBetweenTests;
     }
 
+    public boolean isBatchOutput() {
+        return batchOutput;
+    }
+
+    public boolean isAsyncOutput() {
+        return asyncOutput;
+    }
+
+    public int getAsyncQueueSize() {
+        return asyncQueueSize;
+    }
+
+    public QueueFullPolicy getAsyncQueueFullPolicy() {
+        return asyncQueueFullPolicy;
+    }
+
+    public int getMaxDetailLines() {
+        return maxDetailLines;
+    }
+
+    public long getMaxDetailBytes() {
+        return maxDetailBytes;
+    }
+
+    public int getDetailHeadLines() {
+        return detailHeadLines;
+    }
+
+    public int getDetailTailLines() {
+        return detailTailLines;
+    }
+
+    public String getDetailSpillDirectory() {
+        return detailSpillDirectory;
+    }
+
+    public File getReportsDirectory() {
+        return reportsDirectory.get();
+    }
+
+    public boolean isStreamNestedTests() {
+        return streamNestedTests;
+    }
+
+    public int getNestedTestsTimeoutSeconds() {
+        return nestedTestsTimeoutSeconds;
+    }
+
+    public int getMaxBufferedNestedEntries() {
+        return maxBufferedNestedEntries;
+    }
+
+    public boolean isCompactEntries() {
+        return compactEntries;
+    }
+
+    public boolean isAtomicOutput() {
+        return atomicOutput;
+    }
+
+    public int getAtomicOutputMaxMemory() {
+        return atomicOutputMaxMemory;
+    }
+
+    public int getReorderWindowSize() {
+        return reorderWindowSize;
+    }
+
+    public int getReorderWindowSeconds() {
+        return reorderWindowSeconds;
+    }
+
+    public boolean isAggregateForks() {
+        return aggregateForks;
+    }
+
+    public boolean isCollapseSuccess() {
+        return collapseSuccess;
+    }
+
+    public boolean isFoldParameterizedTests() {
+        return foldParameterizedTests;
+    }
+
+    public int getMaxInvocationLines() {
+        return maxInvocationLines;
+    }
+
     public static final class Builder {
         private boolean printStacktraceOnError;
         private boolean printStacktraceOnFailure;
@@ -101,6 +238,28 @@ public class ReporterOptions {
         private boolean usePhrasedClassNameInRunning;
         private boolean usePhrasedClassNameInTestCaseSummary;
         private boolean printBlankLineBetweenTests;
+        private boolean batchOutput;
+        private boolean asyncOutput;
+        private int asyncQueueSize;
+        private QueueFullPolicy asyncQueueFullPolicy;
+        private int maxDetailLines;
+        private long maxDetailBytes;
+        private int detailHeadLines = 50;
+        private int detailTailLines = 50;
+        private String detailSpillDirectory;
+        private Supplier<File> reportsDirectory;
+        private boolean streamNestedTests;
+        private int nestedTestsTimeoutSeconds;
+        private int maxBufferedNestedEntries;
+        private boolean compactEntries;
+        private boolean atomicOutput;
+        private int atomicOutputMaxMemory;
+        private int reorderWindowSize;
+        private int reorderWindowSeconds;
+        private boolean aggregateForks;
+        private boolean collapseSuccess;
+        private boolean foldParameterizedTests;
+        private int maxInvocationLines;
 
         private Builder() {
         }
@@ -173,5 +332,119 @@ public class ReporterOptions {
             this.printBlankLineBetweenTests = printBlankLineBetweenTests;
             return this;
         }
+
+        public Builder batchOutput(boolean batchOutput) {
+            this.batchOutput = batchOutput;
+            return this;
+        }
+
+        public Builder asyncOutput(boolean asyncOutput) {
+            this.asyncOutput = asyncOutput;
+            return this;
+        }
+
+        public Builder asyncQueueSize(int asyncQueueSize) {
+            this.asyncQueueSize = asyncQueueSize;
+            return this;
+        }
+
+        public Builder asyncQueueFullPolicy(QueueFullPolicy asyncQueueFullPolicy) {
+            this.asyncQueueFullPolicy = asyncQueueFullPolicy;
+            return this;
+        }
+
+        public Builder maxDetailLines(int maxDetailLines) {
+            this.maxDetailLines = maxDetailLines;
+            return this;
+        }
+
+        public Builder maxDetailBytes(long maxDetailBytes) {
+            this.maxDetailBytes = maxDetailBytes;
+            return this;
+        }
+
+        public Builder detailHeadLines(int detailHeadLines) {
+            this.detailHeadLines = detailHeadLines;
+            return this;
+        }
+
+        public Builder detailTailLines(int detailTailLines) {
+            this.detailTailLines = detailTailLines;
+            return this;
+        }
+
+        public Builder detailSpillDirectory(String detailSpillDirectory) {
+            this.detailSpillDirectory = detailSpillDirectory;
+            return this;
+        }
+
+        /**
+         * The reports directory of the plugin, where details are spilled unless {@code detailSpillDirectory} is set.
+         * It is asked for when details are spilled, as surefire tells it only after creating the console reporter.
+         */
+        public Builder reportsDirectory(Supplier<File> reportsDirectory) {
+            this.reportsDirectory = reportsDirectory;
+            return this;
+        }
+
+        public Builder streamNestedTests(boolean streamNestedTests) {
+            this.streamNestedTests = streamNestedTests;
+            return this;
+        }
+
+        public Builder nestedTestsTimeoutSeconds(int nestedTestsTimeoutSeconds) {
+            this.nestedTestsTimeoutSeconds = nestedTestsTimeoutSeconds;
+            return this;
+        }
+
+        public Builder maxBufferedNestedEntries(int maxBufferedNestedEntries) {
+            this.maxBufferedNestedEntries = maxBufferedNestedEntries;
+            return this;
+        }
+
+        public Builder compactEntries(boolean compactEntries) {
+            this.compactEntries = compactEntries;
+            return this;
+        }
+
+        public Builder atomicOutput(boolean atomicOutput) {
+            this.atomicOutput = atomicOutput;
+            return this;
+        }
+
+        public Builder atomicOutputMaxMemory(int atomicOutputMaxMemory) {
+            this.atomicOutputMaxMemory = atomicOutputMaxMemory;
+            return this;
+        }
+
+        public Builder reorderWindowSize(int reorderWindowSize) {
+            this.reorderWindowSize = reorderWindowSize;
+            return this;
+        }
+
+        public Builder reorderWindowSeconds(int reorderWindowSeconds) {
+            this.reorderWindowSeconds = reorderWindowSeconds;
+            return this;
+        }
+
+        public Builder aggregateForks(boolean aggregateForks) {
+            this.aggregateForks = aggregateForks;
+            return this;
+        }
+
+        public Builder collapseSuccess(boolean collapseSuccess) {
+            this.collapseSuccess = collapseSuccess;
+            return this;
+        }
+
+        public Builder foldParameterizedTests(boolean foldParameterizedTests) {
+            this.foldParameterizedTests = foldParameterizedTests;
+            return this;
+        }
+
+        public Builder maxInvocationLines(int maxInvocationLines) {
+            this.maxInvocationLines = maxInvocationLines;
+            return this;
+        }
     }
 }
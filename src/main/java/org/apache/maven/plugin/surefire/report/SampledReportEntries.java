@@ -0,0 +1,203 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.surefire.api.report.RunMode;
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Test entries of a node that keep at most {@code maxInvocationLines} passed invocations of each test method,
+ * for {@code @TestFactory} and {@code @ParameterizedTest} methods generating a huge number of tests.
+ * <p>
+ * Invocations are recognized as by {@link InvocationGroups}. Failed, errored and skipped ones, and entries that are
+ * not invocations, are all kept. Beyond the cap, the passed invocations of a method are only counted, and a uniform
+ * sample of {@code maxInvocationLines} of them is kept by reservoir sampling. The sample takes the place of the first
+ * invocation of its method, in invocation order, followed by an entry telling how many passed invocations were left
+ * out and their total elapsed time. {@link InvocationGroups} folds that entry back into the counts of its method.
+ */
+final class SampledReportEntries extends AbstractList<WrappedReportEntry> {
+
+    private final int maxInvocationLines;
+    private final List<WrappedReportEntry> kept;
+    private final Map<String, Sample> samples = new LinkedHashMap<>();
+    private List<WrappedReportEntry> view;
+    private long omitted;
+
+    SampledReportEntries(int maxInvocationLines, List<WrappedReportEntry> kept) {
+        this.maxInvocationLines = Math.max(1, maxInvocationLines);
+        this.kept = kept;
+    }
+
+    @Override
+    public boolean add(WrappedReportEntry entry) {
+        view = null;
+        modCount++;
+        String method = entry.isSucceeded() ? InvocationGroups.methodOf(entry.getName()) : null;
+        if (method == null) return kept.add(entry);
+        Sample sample = samples.get(method);
+        if (sample == null) {
+            sample = new Sample(method, kept.size(), maxInvocationLines);
+            samples.put(method, sample);
+        }
+        if (sample.add(entry)) omitted++;
+        return true;
+    }
+
+    @Override
+    public WrappedReportEntry get(int index) {
+        return view().get(index);
+    }
+
+    @Override
+    public int size() {
+        if (view != null) return view.size();
+        int size = kept.size();
+        for (Sample sample : samples.values()) {
+            size += Math.min(sample.seen, sample.entries.length) + (sample.seen > sample.entries.length ? 1 : 0);
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        kept.clear();
+        samples.clear();
+        view = null;
+        omitted = 0;
+        modCount++;
+    }
+
+    /**
+     * The number of tests left out of this list, beyond the one entry that tells about them for each method.
+     */
+    long getUnlistedTests() {
+        long unlisted = omitted;
+        for (Sample sample : samples.values()) {
+            if (sample.seen > sample.entries.length) unlisted--;
+        }
+        return unlisted;
+    }
+
+    /**
+     * The sample whose left out invocations {@code entry} tells about, or {@code null} when it is another entry.
+     */
+    Sample sampleOmittedBy(WrappedReportEntry entry) {
+        Sample sample = entry.getName() == null ? null : samples.get(entry.getName());
+        return sample != null && sample.omission == entry ? sample : null;
+    }
+
+    private List<WrappedReportEntry> view() {
+        if (view != null) return view;
+        if (samples.isEmpty()) return kept;
+        List<WrappedReportEntry> entries = new ArrayList<>(kept.size() + samples.size() * (maxInvocationLines + 1));
+        int next = 0;
+        // samples were created in the order of their positions
+        for (Sample sample : samples.values()) {
+            while (next < sample.position) entries.add(kept.get(next++));
+            sample.addTo(entries);
+        }
+        while (next < kept.size()) entries.add(kept.get(next++));
+        view = entries;
+        return entries;
+    }
+
+    static final class Sample {
+        private final String method;
+        private final int position;
+        private final WrappedReportEntry[] entries;
+        private final long[] sequences;
+        private final Random random;
+        private long seen;
+        private long omittedElapsed;
+        private int minOmittedElapsed = Integer.MAX_VALUE;
+        private int maxOmittedElapsed;
+        private WrappedReportEntry omission;
+
+        Sample(String method, int position, int size) {
+            this.method = method;
+            this.position = position;
+            this.entries = new WrappedReportEntry[size];
+            this.sequences = new long[size];
+            // seeded, so a build prints the same sample every time
+            this.random = new Random(method.hashCode());
+        }
+
+        /**
+         * Adds a passed invocation to the reservoir and tells whether one was left out.
+         */
+        boolean add(WrappedReportEntry entry) {
+            long sequence = seen++;
+            if (sequence < entries.length) {
+                entries[(int) sequence] = entry;
+                sequences[(int) sequence] = sequence;
+                return false;
+            }
+            long slot = (long) (random.nextDouble() * seen);
+            WrappedReportEntry left = entry;
+            if (slot < entries.length) {
+                left = entries[(int) slot];
+                entries[(int) slot] = entry;
+                sequences[(int) slot] = sequence;
+            }
+            int elapsed = left.getElapsed() == null ? 0 : left.getElapsed();
+            omittedElapsed += elapsed;
+            minOmittedElapsed = Math.min(minOmittedElapsed, elapsed);
+            maxOmittedElapsed = Math.max(maxOmittedElapsed, elapsed);
+            return true;
+        }
+
+        String getMethod() {
+            return method;
+        }
+
+        int getSampled() {
+            return (int) Math.min(seen, entries.length);
+        }
+
+        long getOmitted() {
+            return Math.max(0, seen - entries.length);
+        }
+
+        long getOmittedElapsed() {
+            return omittedElapsed;
+        }
+
+        int getMinOmittedElapsed() {
+            return minOmittedElapsed;
+        }
+
+        int getMaxOmittedElapsed() {
+            return maxOmittedElapsed;
+        }
+
+        void addTo(List<WrappedReportEntry> list) {
+            int size = (int) Math.min(seen, entries.length);
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparingLong(i -> sequences[i]));
+            for (int i : order) list.add(entries[i]);
+            if (seen > entries.length) {
+                omission = omission();
+                list.add(omission);
+            }
+        }
+
+        private WrappedReportEntry omission() {
+            WrappedReportEntry first = entries[0];
+            long left = seen - entries.length;
+            SimpleReportEntry entry = new SimpleReportEntry(RunMode.NORMAL_RUN, null, first.getSourceName(),
+                    first.getSourceText(), method, "... " + left + " more passed " + (left == 1 ? "invocation" : "invocations")
+                    + " of " + method + " not shown");
+            // the elapsed time of a report entry is an int, the folded line reads the exact total from the sample
+            int elapsed = (int) Math.min(Integer.MAX_VALUE, omittedElapsed);
+            return new WrappedReportEntry(entry, ReportEntryType.SUCCESS, elapsed, null, null);
+        }
+    }
+}
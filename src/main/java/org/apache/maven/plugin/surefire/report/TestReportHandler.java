@@ -3,52 +3,62 @@ package org.apache.maven.plugin.surefire.report;
 import org.apache.maven.surefire.api.report.ReportEntry;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
-import java.util.stream.Collectors;
 
 import static java.util.Collections.singleton;
 
 public class TestReportHandler {
 
-    protected static final Node node = Node.getRoot();
-    protected static final Map<String, Set<String>> classNames = new ConcurrentHashMap<>();
-    protected static final Map<String, List<WrappedReportEntry>> classEntries = new ConcurrentHashMap<>();
-    protected static final Map<String, List<WrappedReportEntry>> testEntries = new ConcurrentHashMap<>();
     protected static final int $ = 36;
 
+    private final Node node;
+    private final NestedClassBuffers buffers;
     private final ReportEntry report;
     private final TestSetStats testSetStats;
     private final String sourceRootName;
 
-    public TestReportHandler(ReportEntry report, TestSetStats testSetStats) {
+    public TestReportHandler(Node node, ReportEntry report, TestSetStats testSetStats) {
+        this.node = node;
+        this.buffers = node.getNestedClassBuffers();
         this.report = report;
         this.testSetStats = testSetStats;
         this.sourceRootName = getSourceRootName();
     }
 
-    public TestReportHandler(ReportEntry report) {
-        this(report, null);
+    public TestReportHandler(Node node, ReportEntry report) {
+        this(node, report, null);
     }
 
     public void prepare() {
-        node.addNode(report);
+        node.addNode(report).setStartingReportEntry(new WrappedReportEntry(report, null, null, null, null));
         if (hasNestedTests()) {
             markClassNamesForNestedTests();
         }
     }
 
+    public void prepare(TreePrinter treePrinter) {
+        if (treePrinter.isStreamNestedTests()) {
+            node.addNode(report).setStartingReportEntry(new WrappedReportEntry(report, null, null, null, null));
+            treePrinter.printReadyTests(getSourceRootNode());
+        } else {
+            prepare();
+        }
+    }
+
     public void print(TreePrinter treePrinter) {
         if (testSetStats != null) {
             testSetStats.getReportEntries()
-                    .forEach(entry -> Node.getBranchNode(node, getTestClassPath(entry.getSourceName())).get().wrappedReportEntries.add(entry));
+                    .forEach(entry -> node.addPath(entry.getSourceName()).wrappedReportEntries.add(entry));
         }
 
-        Node classToBeTested = Node.getBranchNode(node, getTestClassPath(report.getSourceName())).get();
+        // the tree is gone when the watchdog already printed it, the late classes then get a tree of their own
+        Node classToBeTested = node.addPath(report.getSourceName());
         classToBeTested.setClassReportEntry((WrappedReportEntry) report);
 
-        if (isMarkedAsNestedTest()) {
-            prepareEntriesForNestedTests();
+        if (treePrinter.isStreamNestedTests()) {
+            treePrinter.printReadyTests(getSourceRootNode());
+        } else if (isMarkedAsNestedTest()) {
+            prepareEntriesForNestedTests(treePrinter);
             if (isNestedTestReadyToPrint()) {
                 printNestedTests(treePrinter, classToBeTested);
             }
@@ -57,47 +67,42 @@ public class TestReportHandler {
         }
     }
 
-    List<String> getTestClassPath(String sourceName) {
-        return Arrays.stream(sourceName.split("\\$", -1)).collect(Collectors.toList());
-    }
-
     private boolean isMarkedAsNestedTest() {
-        return classNames.containsKey(sourceRootName);
+        return buffers.classNames.containsKey(sourceRootName);
     }
 
     private void prepareClassEntriesForNestedTest() {
-        classEntries.computeIfAbsent(sourceRootName, k -> new ArrayList<>()).add((WrappedReportEntry) report);
+        buffers.classEntries.computeIfAbsent(sourceRootName, k -> new ArrayList<>()).add((WrappedReportEntry) report);
     }
 
     private List<WrappedReportEntry> getClassEntryList() {
-        return classEntries.get(sourceRootName);
+        return buffers.classEntries.get(sourceRootName);
     }
 
     private void markClassNamesForNestedTests() {
-        classNames.putIfAbsent(sourceRootName, new HashSet<>(singleton(sourceRootName)));
-        classNames.computeIfPresent(sourceRootName, addToCollection(report.getSourceName()));
+        buffers.classNames.putIfAbsent(sourceRootName, new HashSet<>(singleton(sourceRootName)));
+        buffers.classNames.computeIfPresent(sourceRootName, addToCollection(report.getSourceName()));
     }
 
     private Set<String> getClassNameList() {
-        return classNames.get(sourceRootName);
+        return buffers.classNames.get(sourceRootName);
     }
 
     private void prepareTestEntriesForNestedTest() {
-        testEntries.computeIfAbsent(sourceRootName, $ -> new ArrayList<>()).addAll(testSetStats.getReportEntries());
+        buffers.testEntries.computeIfAbsent(sourceRootName, $ -> new ArrayList<>()).addAll(testSetStats.getReportEntries());
     }
 
     private List<WrappedReportEntry> getTestEntryList() {
-        return testEntries.get(sourceRootName);
+        return buffers.testEntries.get(sourceRootName);
     }
 
     private void cleanEntries() {
-        classNames.remove(sourceRootName);
-        classEntries.remove(sourceRootName);
-        testEntries.remove(sourceRootName);
+        buffers.evict(sourceRootName);
     }
 
-    private void prepareEntriesForNestedTests() {
-        if (hasNestedTests()) {
+    private void prepareEntriesForNestedTests(TreePrinter treePrinter) {
+        // compact and sampled entries are kept in the tree only, not duplicated here in full
+        if (hasNestedTests() && !treePrinter.isCompactEntries() && !treePrinter.isSampledEntries()) {
             prepareTestEntriesForNestedTest();
         }
         prepareClassEntriesForNestedTest();
@@ -123,8 +128,14 @@ public class TestReportHandler {
         };
     }
 
+    private Node getSourceRootNode() {
+        return node.addPath(sourceRootName);
+    }
+
     private String getSourceRootName() {
-        return report.getSourceName().split("\\$", -1)[0];
+        String sourceName = report.getSourceName();
+        int nestedStart = sourceName.indexOf($);
+        return nestedStart < 0 ? sourceName : sourceName.substring(0, nestedStart);
     }
 
     private boolean hasNestedTests() {
@@ -142,6 +153,6 @@ public class TestReportHandler {
     }
 
     private boolean hasNestedTests(ReportEntry reportEntry) {
-        return reportEntry.getSourceName().chars().anyMatch(c -> c == $);
+        return reportEntry.getSourceName().indexOf($) >= 0;
     }
 }
@@ -32,7 +32,43 @@ public class TextFormatter {
     public static final int MAX_WIDTH = 180;
     public static final String ABBREV_MARKER = "...";
 
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000};
+
     public static String abbreviateName(String text) {
+        if (text != null && text.length() <= MAX_WIDTH && isNormalized(text)) return text;
         return abbreviate(normalizeSpace(text), ABBREV_MARKER, MAX_WIDTH);
     }
+
+    /**
+     * Appends the elapsed time the same way {@link WrappedReportEntry#elapsedTimeAsString()} formats it,
+     * without creating a formatter or an intermediate string.
+     */
+    public static StringBuilder appendElapsedTime(StringBuilder builder, Integer elapsed) {
+        if (elapsed == null) return builder.append((String) null);
+        float seconds = elapsed / 1000f;
+        if (!(seconds > 0)) return builder.append("0 s");
+        int decimals = seconds < 10 ? 3 : seconds < 100 ? 2 : seconds < 1000 ? 1 : 0;
+        long scale = POWERS_OF_TEN[decimals];
+        // exact for any float, so rint gives the HALF_EVEN rounding of DecimalFormat
+        long scaled = (long) Math.rint((double) seconds * scale);
+        builder.append(scaled / scale);
+        if (decimals > 0) {
+            builder.append('.');
+            long fraction = scaled % scale;
+            for (long digit = scale / 10; digit > 0; digit /= 10) {
+                builder.append((char) ('0' + fraction / digit % 10));
+            }
+        }
+        return builder.append(" s");
+    }
+
+    private static boolean isNormalized(String text) {
+        char previous = ' ';
+        for (int i = 0; i < text.length(); i++) {
+            char current = text.charAt(i);
+            if (current == ' ' ? previous == ' ' : current == 160 || Character.isWhitespace(current)) return false;
+            previous = current;
+        }
+        return previous != ' ' || text.isEmpty();
+    }
 }
@@ -0,0 +1,108 @@
+package org.apache.maven.plugin.surefire.report;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The prefixes of the lines of a tree, built once per theme and layout of columns and shared by every printer.
+ * <p>
+ * A prefix is made of one column per ancestor, holding a pipe or a blank, followed by the connectors of the line.
+ * The columns of a theme form a trie: walking it from its root with the continuation of each column reaches the
+ * node holding the prefixes with exactly those columns, so looking up a prefix built before allocates nothing.
+ * <p>
+ * The trie is grown without locking, as forks render their trees concurrently: nodes and prefixes are only
+ * reached through final fields, so threads racing on the same one each build an equal value and keep either.
+ */
+final class TreePrefixes {
+
+    private static final int ENTRY = 0;
+    private static final int END = 1;
+    private static final int ENTRY_DOWN = 2;
+    private static final int ENTRY_DASH = 3;
+    private static final int END_DOWN = 4;
+    private static final int END_DASH = 5;
+    private static final int DOWN = 6;
+    private static final int DASH = 7;
+
+    private static final Map<Theme, TreePrefixes> THEMES = new EnumMap<>(Theme.class);
+
+    static {
+        for (Theme theme : Theme.values()) {
+            THEMES.put(theme, new TreePrefixes(theme));
+        }
+    }
+
+    private final Theme theme;
+    private final String[] connectors;
+    private final Columns root;
+
+    private TreePrefixes(Theme theme) {
+        this.theme = theme;
+        this.connectors = new String[] {
+                theme.entry(), theme.end(),
+                theme.entry() + theme.down(), theme.entry() + theme.dash(),
+                theme.end() + theme.down(), theme.end() + theme.dash(),
+                theme.down(), theme.dash()
+        };
+        this.root = new Columns("");
+    }
+
+    static TreePrefixes of(Theme theme) {
+        return THEMES.get(theme);
+    }
+
+    /**
+     * The prefix of the test lines of a class: its ancestors' columns, its own column, holding a pipe while
+     * its nested classes follow, and the connector of the test.
+     */
+    String test(NodeLayout layout, boolean lastEntry) {
+        return columns(layout, layout.getDepth() - 1).next(layout.hasBranches()).prefix(lastEntry ? END : ENTRY);
+    }
+
+    /**
+     * The prefix of the line of a class, up to its name: its ancestors' columns, the connector to its parent
+     * unless it is a top-level class, and whether nested classes hang below it.
+     */
+    String heading(NodeLayout layout, boolean branches) {
+        if (layout.getDepth() <= 1) return root.prefix(branches ? DOWN : DASH);
+        int connector = layout.isLast() ? (branches ? END_DOWN : END_DASH) : (branches ? ENTRY_DOWN : ENTRY_DASH);
+        return columns(layout, layout.getDepth() - 2).prefix(connector);
+    }
+
+    private Columns columns(NodeLayout layout, int count) {
+        Columns columns = root;
+        for (int column = 0; column < count; column++) {
+            columns = columns.next(layout.continues(column));
+        }
+        return columns;
+    }
+
+    private final class Columns {
+        private final String columns;
+        private final Columns[] next = new Columns[2];
+        private final String[] prefixes = new String[connectors.length];
+
+        private Columns(String columns) {
+            this.columns = columns;
+        }
+
+        Columns next(boolean pipe) {
+            int index = pipe ? 1 : 0;
+            Columns columns = next[index];
+            if (columns == null) {
+                columns = new Columns(this.columns + (pipe ? theme.pipe() : theme.blank()));
+                next[index] = columns;
+            }
+            return columns;
+        }
+
+        String prefix(int connector) {
+            String prefix = prefixes[connector];
+            if (prefix == null) {
+                prefix = columns + connectors[connector];
+                prefixes[connector] = prefix;
+            }
+            return prefix;
+        }
+    }
+}
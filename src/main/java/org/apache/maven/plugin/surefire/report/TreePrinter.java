@@ -21,6 +21,8 @@ package org.apache.maven.plugin.surefire.report;
 
 import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
 
+import java.util.function.Consumer;
+
 import static org.apache.maven.surefire.shared.utils.logging.MessageUtils.buffer;
 
 /**
@@ -33,13 +35,141 @@ public class TreePrinter {
     private static final int $ = 36;
     private final ConsoleLogger consoleLogger;
     private final ReporterOptions options;
+    private final AsyncOutputWriter asyncWriter;
+    private final ReorderWindow reorderWindow;
 
     public TreePrinter(ConsoleLogger consoleLogger, ReporterOptions options) {
-        this.consoleLogger = consoleLogger;
+        this(consoleLogger, options, null);
+    }
+
+    /**
+     * With a {@link ForkAggregator}, trees are written by the writer it shares between the reporters of all forks.
+     */
+    TreePrinter(ConsoleLogger consoleLogger, ReporterOptions options, ForkAggregator aggregator) {
+        this.consoleLogger = aggregator != null ? aggregator.getConsoleLogger() : outputLogger(consoleLogger, options);
         this.options = options;
+        this.asyncWriter = aggregator != null ? aggregator.getWriter()
+                : options.isAsyncOutput()
+                ? new AsyncOutputWriter(this.consoleLogger, options.getAsyncQueueSize(), options.getAsyncQueueFullPolicy())
+                : null;
+        this.reorderWindow = ReorderWindow.of(options);
+    }
+
+    /**
+     * Prints the tree of a completed class. With a reorder window, the tree of a top-level class is held
+     * until the trees of the classes started before it are printed, see {@link ReorderWindow}.
+     */
+    public synchronized void printTests(Node node) {
+        if (reorderWindow != null && ReorderWindow.isTopLevel(node)) {
+            reorderWindow.hold(node);
+            printHeldTests(node.getParent());
+        } else {
+            print(node, ActualTreePrinter::printAndRemoveChild);
+        }
+    }
+
+    /**
+     * Prints the trees the reorder window can release, as the time limit may have passed since the last tree completed.
+     */
+    public synchronized void printHeldTests(Node root) {
+        if (reorderWindow == null) return;
+        for (Node tree : reorderWindow.release(root)) {
+            print(tree, ActualTreePrinter::printAndRemoveChild);
+        }
+    }
+
+    /**
+     * Whether the reorder window holds trees back, which {@link #printHeldTests(Node)} may print once its time limit passed.
+     */
+    public synchronized boolean hasHeldTests() {
+        return reorderWindow != null && !reorderWindow.isEmpty();
+    }
+
+    /**
+     * Prints the classes of {@code node}'s tree whose output is final, see {@link #isStreamNestedTests()}.
+     */
+    public synchronized void printReadyTests(Node node) {
+        print(node, ActualTreePrinter::printReadyAndRemoveFinished);
+    }
+
+    /**
+     * Prints what is left of {@code node}'s tree even though some of its classes never completed.
+     */
+    public synchronized void printIncompleteTests(Node node) {
+        if (reorderWindow != null && reorderWindow.remove(node)) {
+            // held, so it did complete
+            print(node, ActualTreePrinter::printAndRemoveChild);
+        } else {
+            print(node, ActualTreePrinter::printIncompleteAndRemoveChild);
+        }
+        // the trees held behind it may follow now
+        printHeldTests(node.getRoot());
+    }
+
+    /**
+     * Whether the classes of a tree with nested classes are printed as soon as their output is final,
+     * instead of all at once when the top-level class completes.
+     */
+    public boolean isStreamNestedTests() {
+        return options.isStreamNestedTests();
+    }
+
+    /**
+     * Whether buffered test entries are kept in {@link CompactReportEntries}.
+     */
+    public boolean isCompactEntries() {
+        return options.isCompactEntries();
+    }
+
+    /**
+     * Whether buffered test entries are kept in {@link SampledReportEntries}.
+     */
+    public boolean isSampledEntries() {
+        return options.getMaxInvocationLines() > 0;
+    }
+
+    /**
+     * The logger trees are written to, holding them back as blocks when {@code atomicOutput} or {@code batchOutput} is set.
+     */
+    static ConsoleLogger outputLogger(ConsoleLogger consoleLogger, ReporterOptions options) {
+        if (options.isAtomicOutput()) return new AtomicBlockLogger(consoleLogger, options.getAtomicOutputMaxMemory());
+        return options.isBatchOutput() ? new BatchingConsoleLogger(consoleLogger) : consoleLogger;
+    }
+
+    private void print(Node node, Consumer<ActualTreePrinter> printing) {
+        if (asyncWriter != null) {
+            OutputBlock block = new OutputBlock();
+            printing.accept(new ActualTreePrinter(node, block, options));
+            if (!block.isEmpty()) asyncWriter.submit(block);
+        } else {
+            printing.accept(new ActualTreePrinter(node, consoleLogger, options));
+            OutputBlock.flush(consoleLogger);
+        }
+    }
+
+    /**
+     * Writes and flushes what was printed so far. With asynchronous output this waits until the pending
+     * test sets are written, so they come out before whatever surefire prints next.
+     */
+    public void flush() {
+        if (asyncWriter != null) {
+            asyncWriter.flush();
+        } else {
+            OutputBlock.flush(consoleLogger);
+        }
+    }
+
+    /**
+     * Writes the pending test sets on the calling thread.
+     */
+    public void drain() {
+        if (asyncWriter != null) asyncWriter.drain();
     }
 
-    public void printTests(Node node) {
-        new ActualTreePrinter(node, consoleLogger, options).printAndRemoveChild();
+    /**
+     * Writes and flushes everything printed so far, on the calling thread.
+     */
+    public void close() {
+        flush();
     }
 }
@@ -0,0 +1,329 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.apache.maven.surefire.api.report.RunMode;
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+
+class ActualTreePrinterTest {
+
+    Utf8RecodingDeferredFileOutputStream stdout = new Utf8RecodingDeferredFileOutputStream("stdout");
+    Utf8RecodingDeferredFileOutputStream stderr = new Utf8RecodingDeferredFileOutputStream("stderr");
+
+    Node root;
+    EmulatorLogger logger;
+
+    @BeforeEach
+    void setup() {
+        root = Node.createRoot();
+        logger = new EmulatorLogger();
+    }
+
+    @Test
+    void printsContinuingAncestorsInEveryColumn() {
+        Node outer = addClass("Outer", "Outer", "t1");
+        addClass("Outer$A", "Outer A", "a1", "a2");
+        addClass("Outer$A$B", "Outer A B", "b1");
+        addClass("Outer$A$B$C", "Outer A B C", "c1");
+        addClass("Outer$A$D", "Outer A D", "d1");
+        addClass("Outer$B", "Outer B", "b2");
+
+        print(outer);
+
+        assertThat(logger.getLogList()).containsExactly(
+                ".--Outer - 0.001 s",
+                "|  '-- [OK] t1 - 0.001 s",
+                "+--.--A - 0.001 s",
+                "|  |  +-- [OK] a1 - 0.001 s",
+                "|  |  '-- [OK] a2 - 0.001 s",
+                "|  +--.--B - 0.001 s",
+                "|  |  |  '-- [OK] b1 - 0.001 s",
+                "|  |  '-----C - 0.001 s",
+                "|  |        '-- [OK] c1 - 0.001 s",
+                "|  '-----D - 0.001 s",
+                "|        '-- [OK] d1 - 0.001 s",
+                "'-----B - 0.001 s",
+                "      '-- [OK] b2 - 0.001 s");
+    }
+
+    @Test
+    void doesNotMatchAncestorsByName() {
+        // Outer$A$B shares its name with the last branch Outer$B
+        Node outer = addClass("Outer", "Outer");
+        addClass("Outer$A", "Outer A");
+        addClass("Outer$A$B", "Outer A B");
+        addClass("Outer$A$B$C", "Outer A B C", "c1");
+        addClass("Outer$B", "Outer B", "b1");
+
+        print(outer);
+
+        assertThat(logger.getLogList()).contains(
+                "|     '-----C - 0.001 s",
+                "|           '-- [OK] c1 - 0.001 s");
+    }
+
+    @Test
+    void printsClassWithoutNestedClasses() {
+        Node single = addClass("Single", "Single", "s1", "s2");
+
+        print(single);
+
+        assertThat(logger.getLogList()).containsExactly(
+                "---Single - 0.001 s",
+                "   +-- [OK] s1 - 0.001 s",
+                "   '-- [OK] s2 - 0.001 s");
+    }
+
+    @Test
+    void collapsesPassingTreeIntoOneLine() {
+        Node outer = addClass("Outer", "Outer", "t1");
+        addClass("Outer$A", "Outer A", "a1", "a2");
+        addClass("Outer$A$B", "Outer A B", "b1");
+
+        new ActualTreePrinter(outer, logger, ReporterOptions.builder().collapseSuccess(true).build()).print();
+
+        assertThat(logger.getLogList()).containsExactly("---Outer (4 tests passed) - 0.001 s");
+    }
+
+    @Test
+    void collapsesOnlyPassingSubtreesAroundFailures() {
+        Node outer = addClass("Outer", "Outer", "t1");
+        addClass("Outer$A", "Outer A", "a1", "a2");
+        addClass("Outer$A$B", "Outer A B", "b1");
+        Node c = addClass("Outer$C", "Outer C", "c1");
+        c.wrappedReportEntries.add(new WrappedReportEntry(
+                new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, "Outer$C", "Outer C", "c2", "c2"),
+                ReportEntryType.SKIPPED, 1, stdout, stderr));
+        addClass("Outer$C$D", "Outer C D", "d1");
+
+        new ActualTreePrinter(outer, logger, ReporterOptions.builder().collapseSuccess(true).build()).print();
+
+        assertThat(logger.getLogList()).containsExactly(
+                ".--Outer - 0.001 s",
+                "|  '-- [OK] t1 - 0.001 s",
+                "+-----A (3 tests passed) - 0.001 s",
+                "'--.--C - 0.001 s",
+                "   |  +-- [OK] c1 - 0.001 s",
+                "   |  '-- [??] c2 - 0.001 s",
+                "   '-----D (1 test passed) - 0.001 s");
+    }
+
+    @Test
+    void foldsInvocationsOfParameterizedTests() {
+        Node params = addClass("Params", "Params", "plain");
+        for (int i = 1; i <= 20; i++) {
+            params.wrappedReportEntries.add(new WrappedReportEntry(
+                    new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, "Params", "Params", "add(int)[" + i + "]", "[" + i + "] " + i),
+                    i == 7 ? ReportEntryType.FAILURE : ReportEntryType.SUCCESS, i, stdout, stderr));
+        }
+        params.wrappedReportEntries.add(wrap(
+                new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, "Params", "Params", "other(String)[1]", "[1] one")));
+
+        new ActualTreePrinter(params, logger, ReporterOptions.builder().foldParameterizedTests(true).build()).print();
+
+        assertThat(logger.getLogList()).containsExactly(
+                "---Params - 0.001 s",
+                "   +-- [OK] plain - 0.001 s",
+                "   +-- [XX] add(int) - 20 invocations, 19 passed, 1 failed"
+                        + " - min 0.001 s, avg 0.011 s, max 0.020 s, p95 0.019 s",
+                "   +-- [XX] [7] 7 - 0.007 s",
+                "   '-- [OK] [1] one - 0.001 s");
+    }
+
+    @Test
+    void foldsSampledInvocationsWithTheirRealTotals() {
+        root = Node.createRoot(() -> new SampledReportEntries(5, new ArrayList<>()));
+        Node params = addClass("Params", "Params");
+        for (int i = 1; i <= 1000; i++) {
+            params.wrappedReportEntries.add(new WrappedReportEntry(
+                    new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, "Params", "Params", "add(int)[" + i + "]", "[" + i + "] " + i),
+                    i == 500 ? ReportEntryType.FAILURE : ReportEntryType.SUCCESS, i, stdout, stderr));
+        }
+
+        new ActualTreePrinter(params, logger,
+                ReporterOptions.builder().foldParameterizedTests(true).maxInvocationLines(5).build()).print();
+
+        List<String> lines = logger.getLogList();
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(1)).startsWith("   +-- [XX] add(int) - 1000 invocations, 999 passed, 1 failed"
+                + " - min 0.001 s, avg 0.501 s, max 1.000 s, p95 ");
+        // estimated from the 5 sampled invocations, each standing for 200
+        assertThat(Double.parseDouble(lines.get(1).replaceAll(".*p95 ([0-9.]+) s$", "$1"))).isBetween(0.5, 1.0);
+        assertThat(lines.get(2)).isEqualTo("   '-- [XX] [500] 500 - 0.500 s");
+    }
+
+    @Test
+    void printsCapturedOutputThroughTheLoggerInOrder() throws IOException {
+        stdout.write("hello", true);
+        stdout.write("world", false);
+        Node single = addClass("Single", "Single", "s1", "s2");
+
+        new ActualTreePrinter(single, logger, ReporterOptions.builder().printStdoutOnSuccess(true).build()).print();
+
+        List<String> lines = logger.getLogList();
+        assertThat(lines).hasSize(13);
+        assertThat(lines).containsSubsequence(
+                "   +-- [OK] s1 - 0.001 s", "", "Standard out", "hello", "world",
+                "   '-- [OK] s2 - 0.001 s", "", "Standard out", "hello", "world");
+    }
+
+    @Test
+    void printsHundredThousandEntriesInLinearTime() {
+        EmulatorLogger silentLogger = new EmulatorLogger(new NullConsoleLogger());
+        Node parameterized = addParameterized("Parameterized", 100_000);
+
+        new ActualTreePrinter(parameterized, silentLogger, ReporterOptions.builder().build()).print();
+
+        List<String> lines = silentLogger.getLogList();
+        assertThat(lines).hasSize(100_001);
+        assertThat(lines.get(1)).isEqualTo("   +-- [OK] [0] - 0.001 s");
+        assertThat(lines.get(100_000)).isEqualTo("   '-- [OK] [99999] - 0.001 s");
+
+        long tenThousand = fastestPrint(addParameterized("Small", 10_000));
+        long hundredThousand = fastestPrint(parameterized);
+        // ten times the entries take about ten times as long, they would take a hundred times if quadratic
+        assertThat(hundredThousand).isLessThan(30 * tenThousand);
+    }
+
+    @Test
+    void printsThousandLevelsDeepOnASmallStack() throws InterruptedException {
+        EmulatorLogger silentLogger = new EmulatorLogger(new NullConsoleLogger());
+        StringBuilder sourceName = new StringBuilder("Deep");
+        Node deep = addClass("Deep", "Deep", "test");
+        for (int level = 1; level < 1000; level++) {
+            sourceName.append("$Level").append(level);
+            addClass(sourceName.toString(), "Level" + level, "test");
+        }
+
+        runWithSmallStack(() -> assertTimeout(Duration.ofSeconds(10),
+                new ActualTreePrinter(deep, silentLogger, ReporterOptions.builder().streamNestedTests(true).build())::printReadyAndRemoveFinished));
+
+        List<String> lines = silentLogger.getLogList();
+        assertThat(lines).hasSize(2000);
+        assertThat(lines.get(1998)).endsWith("'-----Level999 - 0.001 s");
+        assertThat(root.hasBranches()).isFalse();
+    }
+
+    @Test
+    void streamsHundredThousandNestedClassesInLinearTime() {
+        EmulatorLogger silentLogger = new EmulatorLogger(new NullConsoleLogger());
+        // batched, so the time limit covers the walk of the tree rather than one logger call per line
+        BatchingConsoleLogger batchingLogger = new BatchingConsoleLogger(silentLogger);
+        Node wide = addClass("Wide", "Wide");
+        for (int i = 0; i < 100_000; i++) {
+            addClass("Wide$Nested" + i, "Wide Nested" + i, "test");
+        }
+        ActualTreePrinter printer = new ActualTreePrinter(wide, batchingLogger, ReporterOptions.builder().streamNestedTests(true).build());
+
+        assertTimeout(Duration.ofSeconds(10), printer::printReadyAndRemoveFinished);
+        batchingLogger.flush();
+
+        List<String> lines = Arrays.asList(String.join(System.lineSeparator(), silentLogger.getLogList()).split(System.lineSeparator()));
+        assertThat(lines).hasSize(200_001);
+        assertThat(lines.get(199_999)).isEqualTo("'-----Nested99999 - 0.001 s");
+    }
+
+    @Test
+    void rendersLinesWithoutAllocatingPerLine() {
+        Node parameterized = addParameterized("Parameterized", 10_000);
+        ActualTreePrinter printer = new ActualTreePrinter(parameterized, new BatchingConsoleLogger(new NullConsoleLogger()), ReporterOptions.builder().build());
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int warmup = 0; warmup < 20; warmup++) printer.print();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        printer.print();
+        long bytesPerLine = (threads.getThreadAllocatedBytes(threadId) - before) / 10_001;
+
+        // only the 64K chunks handed to the logger remain, roughly one byte per character
+        assertThat(bytesPerLine).isLessThan(64);
+    }
+
+    @Test
+    void rendersWideTreesWithoutBuildingPrefixesPerClass() {
+        Node wide = addClass("Wide", "Wide", "test");
+        for (int i = 0; i < 100; i++) {
+            addClass("Wide$Nested" + i, "Wide Nested" + i, "first", "second");
+            for (int j = 0; j < 10; j++) {
+                addClass("Wide$Nested" + i + "$Inner" + j, "Wide Nested" + i + " Inner" + j, "first", "second", "third");
+            }
+        }
+        ActualTreePrinter printer = new ActualTreePrinter(wide, new BatchingConsoleLogger(new NullConsoleLogger()), ReporterOptions.builder().build());
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int warmup = 0; warmup < 20; warmup++) printer.print();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        printer.print();
+        long bytesPerClass = (threads.getThreadAllocatedBytes(threadId) - before) / 1_101;
+
+        // the layout and the name of each class remain, building its test prefixes took about as much again
+        assertThat(bytesPerClass).isLessThan(400);
+    }
+
+    private static void runWithSmallStack(Runnable task) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "small-stack", 256 * 1024);
+        thread.start();
+        thread.join();
+        assertThat(failure.get()).isNull();
+    }
+
+    /**
+     * The shortest of several prints of {@code node}, once warmed up, in nanoseconds.
+     */
+    private static long fastestPrint(Node node) {
+        ActualTreePrinter printer = new ActualTreePrinter(node, new BatchingConsoleLogger(new NullConsoleLogger()), ReporterOptions.builder().build());
+        for (int warmup = 0; warmup < 3; warmup++) printer.print();
+        long fastest = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            printer.print();
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+
+    private void print(Node node) {
+        new ActualTreePrinter(node, logger, ReporterOptions.builder().build()).print();
+    }
+
+    private Node addClass(String sourceName, String sourceText, String... tests) {
+        Node node = root.addPath(sourceName);
+        node.setClassReportEntry(wrap(new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, sourceName, sourceText, null, null)));
+        for (String test : tests) {
+            node.wrappedReportEntries.add(wrap(new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, sourceName, sourceText, test, test)));
+        }
+        return node;
+    }
+
+    private Node addParameterized(String sourceName, int invocations) {
+        Node node = addClass(sourceName, sourceName);
+        for (int i = 0; i < invocations; i++) {
+            node.wrappedReportEntries.add(wrap(new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, sourceName, sourceName, "test", "[" + i + "]")));
+        }
+        return node;
+    }
+
+    private WrappedReportEntry wrap(SimpleReportEntry entry) {
+        return new WrappedReportEntry(entry, ReportEntryType.SUCCESS, 1, stdout, stderr);
+    }
+}
@@ -0,0 +1,154 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncOutputWriterTest {
+
+    GatedLogger logger = new GatedLogger();
+
+    @Test
+    void writesBlocksInSubmissionOrder() {
+        AsyncOutputWriter writer = new AsyncOutputWriter(logger, 2, QueueFullPolicy.BLOCK);
+        logger.open();
+
+        IntStream.range(0, 50).forEach(i -> writer.submit(block("a" + i, "b" + i)));
+        writer.drain();
+
+        assertThat(logger.lines()).containsExactlyElementsOf(IntStream.range(0, 50)
+                .boxed()
+                .flatMap(i -> IntStream.of(0, 1).mapToObj(j -> (j == 0 ? "a" : "b") + i))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void doesNotWaitForTheConsole() {
+        AsyncOutputWriter writer = new AsyncOutputWriter(logger, 4, QueueFullPolicy.BLOCK);
+
+        writer.submit(block("first"));
+        writer.submit(block("second"));
+
+        assertThat(logger.lines()).isEmpty();
+        logger.open();
+        writer.drain();
+        assertThat(logger.lines()).containsExactly("first", "second");
+    }
+
+    @Test
+    void flushWaitsForTheBlocksSubmittedSoFar() throws Exception {
+        AsyncOutputWriter writer = new AsyncOutputWriter(logger, 4, QueueFullPolicy.BLOCK);
+        writer.submit(block("first"));
+        writer.submit(block("second"));
+        logger.awaitWriting();
+
+        Thread console = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            logger.open();
+        }, "console");
+        console.start();
+        writer.flush();
+
+        assertThat(logger.lines()).containsExactly("first", "second");
+        console.join();
+    }
+
+    @Test
+    void writesOnCallerThreadAfterQueuedBlocksWhenDegrading() throws Exception {
+        AsyncOutputWriter writer = new AsyncOutputWriter(logger, 1, QueueFullPolicy.DEGRADE);
+        writer.submit(block("first"));
+        logger.awaitWriting();
+        writer.submit(block("second"));
+
+        Thread caller = new Thread(() -> writer.submit(block("third")), "caller");
+        caller.start();
+        awaitState(caller, Thread.State.BLOCKED);
+        logger.open();
+        caller.join();
+
+        assertThat(logger.lines()).containsExactly("first", "second", "third");
+        assertThat(logger.threads.get(2)).isEqualTo("caller");
+        assertThat(logger.threads.get(0)).isEqualTo("surefire-tree-writer");
+    }
+
+    @Test
+    void waitsForRoomWhenBlocking() throws Exception {
+        AsyncOutputWriter writer = new AsyncOutputWriter(logger, 1, QueueFullPolicy.BLOCK);
+        writer.submit(block("first"));
+        logger.awaitWriting();
+        writer.submit(block("second"));
+
+        Thread caller = new Thread(() -> writer.submit(block("third")), "caller");
+        caller.start();
+        awaitState(caller, Thread.State.WAITING);
+        logger.open();
+        caller.join();
+        writer.drain();
+
+        assertThat(logger.lines()).containsExactly("first", "second", "third");
+        assertThat(logger.threads).doesNotContain("caller");
+    }
+
+    private static OutputBlock block(String... lines) {
+        OutputBlock block = new OutputBlock();
+        for (String line : lines) block.info(line);
+        return block;
+    }
+
+    private static void awaitState(Thread thread, Thread.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != state) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Holds every line until {@link #open()} is called, recording which thread wrote it.
+     */
+    static class GatedLogger extends EmulatorLogger {
+
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final CountDownLatch writing = new CountDownLatch(1);
+        final List<String> threads = new CopyOnWriteArrayList<>();
+
+        GatedLogger() {
+            super(new NullConsoleLogger());
+        }
+
+        void open() {
+            gate.countDown();
+        }
+
+        void awaitWriting() throws InterruptedException {
+            assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        List<String> lines() {
+            return getLogList();
+        }
+
+        @Override
+        public void info(String message) {
+            writing.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            threads.add(Thread.currentThread().getName());
+            super.info(message);
+        }
+    }
+}
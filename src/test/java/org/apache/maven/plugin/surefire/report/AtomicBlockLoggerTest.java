@@ -0,0 +1,179 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.NestedExampleTest;
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AtomicBlockLoggerTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    EmulatorLogger delegate = new EmulatorLogger(new NullConsoleLogger());
+
+    @Test
+    void writesTheWholeBlockInOneMessage() {
+        AtomicBlockLogger logger = new AtomicBlockLogger(delegate, 1024 * 1024, spillDirectory);
+        String line = new String(new char[1023]).replace('\0', 'x');
+        for (int i = 0; i < 100; i++) {
+            logger.info(line);
+        }
+        assertThat(delegate.getLogList()).isEmpty();
+
+        logger.flush();
+
+        assertThat(delegate.getLogList()).hasSize(1);
+        assertThat(delegate.getLogList().get(0).split(System.lineSeparator())).hasSize(100);
+    }
+
+    @Test
+    void spillsBlockOverTheMemoryCap() throws IOException {
+        AtomicBlockLogger logger = new AtomicBlockLogger(delegate, 4096, spillDirectory);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add(String.format("line %03d %s", i, new String(new char[90]).replace('\0', '.')));
+            logger.info(lines.get(i));
+        }
+        assertThat(spilled()).hasSize(1);
+
+        logger.flush();
+
+        assertThat(spilled()).isEmpty();
+        assertThat(delegate.getLogList()).hasSizeGreaterThan(1)
+                .allMatch(message -> message.length() <= 2048);
+        assertThat(lines(delegate.getLogList())).isEqualTo(lines);
+    }
+
+    @Test
+    void spillsAgainAfterASpillFailed() throws IOException {
+        Path missing = spillDirectory.resolve("missing");
+        AtomicBlockLogger logger = new AtomicBlockLogger(delegate, 1024, missing);
+        for (int i = 0; i < 100; i++) logger.info("line " + i);
+        logger.flush();
+        assertThat(delegate.getLogList()).hasSize(1);
+
+        Files.createDirectory(missing);
+        for (int i = 0; i < 100; i++) logger.info("line " + i);
+
+        assertThat(spilled(missing)).hasSize(1);
+        logger.flush();
+        assertThat(delegate.getLogList()).hasSizeGreaterThan(2);
+    }
+
+    @Test
+    void keepsEmptyLines() {
+        AtomicBlockLogger logger = new AtomicBlockLogger(delegate, 1024, spillDirectory);
+        logger.info("");
+        logger.info("line");
+        logger.info("");
+        logger.flush();
+        logger.info("");
+        logger.flush();
+
+        assertThat(delegate.getLogList()).containsExactly(System.lineSeparator() + "line" + System.lineSeparator(), "");
+    }
+
+    @Test
+    void keepsEmptyLinesOfSpilledBlock() {
+        AtomicBlockLogger logger = new AtomicBlockLogger(delegate, 1024, spillDirectory);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add(i % 10 == 0 ? "" : "line " + i);
+            logger.info(lines.get(i));
+        }
+        lines.add("");
+        logger.info("");
+        logger.flush();
+
+        List<String> written = Arrays.asList(String.join(System.lineSeparator(), delegate.getLogList())
+                .split(System.lineSeparator(), -1));
+        assertThat(delegate.getLogList()).hasSizeGreaterThan(1);
+        assertThat(written).isEqualTo(lines);
+    }
+
+    @Test
+    void flushesPendingBlockBeforeOtherLevels() {
+        AtomicBlockLogger logger = new AtomicBlockLogger(delegate, 1024, spillDirectory);
+        logger.info("info");
+        logger.warning("warning");
+
+        assertThat(delegate.getLogList()).containsExactly("info", "warning");
+    }
+
+    @Test
+    void neverInterleavesBlocksOfParallelModules() throws Exception {
+        ExecutorService modules = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> builds = new ArrayList<>();
+            for (int module = 0; module < 8; module++) {
+                int id = module;
+                // half of the modules spill their trees
+                AtomicBlockLogger logger = new AtomicBlockLogger(delegate, id % 2 == 0 ? 1024 : 1024 * 1024, spillDirectory);
+                builds.add(modules.submit(() -> {
+                    for (int tree = 0; tree < 20; tree++) {
+                        for (int line = 0; line < 100; line++) {
+                            logger.info("module" + id + " tree" + tree + " line" + line);
+                        }
+                        logger.flush();
+                    }
+                }));
+            }
+            for (Future<?> build : builds) build.get(60, TimeUnit.SECONDS);
+        } finally {
+            modules.shutdownNow();
+        }
+
+        List<String> trees = lines(delegate.getLogList()).stream()
+                .map(line -> line.substring(0, line.lastIndexOf(' ')))
+                .collect(toList());
+        long runs = 1;
+        for (int i = 1; i < trees.size(); i++) {
+            if (!trees.get(i).equals(trees.get(i - 1))) runs++;
+        }
+        assertThat(trees).hasSize(8 * 20 * 100);
+        assertThat(runs).isEqualTo(8 * 20);
+    }
+
+    @Test
+    void printsWholeClassTreeInOneMessage() {
+        ReporterOptions options = ReporterOptions.builder().theme(Theme.UNICODE).atomicOutput(true).build();
+        List<String> lines = new SurefireEmulator(NestedExampleTest.class).run();
+
+        List<String> blocks = new SurefireEmulator(options, NestedExampleTest.class).run();
+
+        assertThat(blocks).hasSize(1);
+        assertThat(lines(blocks)).isEqualTo(lines);
+    }
+
+    private List<Path> spilled() throws IOException {
+        return spilled(spillDirectory);
+    }
+
+    private static List<Path> spilled(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(toList());
+        }
+    }
+
+    private static List<String> lines(List<String> messages) {
+        return messages.stream()
+                .flatMap(message -> Arrays.stream(message.split(System.lineSeparator())))
+                .collect(toList());
+    }
+}
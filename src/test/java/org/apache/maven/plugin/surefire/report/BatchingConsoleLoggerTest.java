@@ -0,0 +1,81 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.NestedExampleTest;
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchingConsoleLoggerTest {
+
+    EmulatorLogger delegate = new EmulatorLogger(new NullConsoleLogger());
+    BatchingConsoleLogger logger = new BatchingConsoleLogger(delegate);
+
+    @Test
+    void holdsLinesUntilFlushed() {
+        logger.info("first");
+        logger.info("second");
+        assertThat(delegate.getLogList()).isEmpty();
+
+        logger.flush();
+
+        assertThat(delegate.getLogList()).containsExactly("first" + System.lineSeparator() + "second");
+    }
+
+    @Test
+    void keepsEmptyLines() {
+        logger.info("");
+        logger.info("line");
+        logger.info("");
+        logger.flush();
+        logger.info("");
+        logger.flush();
+
+        assertThat(delegate.getLogList()).containsExactly(System.lineSeparator() + "line" + System.lineSeparator(), "");
+    }
+
+    @Test
+    void flushesPendingLinesBeforeOtherLevels() {
+        logger.info("info");
+        logger.warning("warning");
+
+        assertThat(delegate.getLogList()).containsExactly("info", "warning");
+    }
+
+    @Test
+    void emitsLargeOutputInChunks() {
+        String line = new String(new char[1023]).replace('\0', 'x');
+        for (int i = 0; i < 1000; i++) {
+            logger.info(line);
+        }
+        logger.flush();
+
+        List<String> chunks = delegate.getLogList();
+        assertThat(chunks).hasSizeBetween(2, 1000 * 1024 / BatchingConsoleLogger.CHUNK_SIZE + 1);
+        assertThat(String.join(System.lineSeparator(), chunks).split(System.lineSeparator())).hasSize(1000);
+    }
+
+    @Test
+    void printsWholeClassTreeInOneMessage() {
+        ReporterOptions options = ReporterOptions.builder().batchOutput(true).build();
+        List<String> unbatched = new SurefireEmulator(NestedExampleTest.class).run();
+        List<String> batched = new SurefireEmulator(options, NestedExampleTest.class).run();
+
+        assertThat(batched).hasSize(1);
+        assertThat(batched.get(0).split(System.lineSeparator())).hasSameSizeAs(unbatched);
+    }
+
+    @Test
+    void keepsBlankLinesBetweenTests() {
+        List<String> unbatched = new SurefireEmulator(ReporterOptions.builder().printBlankLineBetweenTests(true).build(),
+                NestedExampleTest.class).run();
+        List<String> batched = new SurefireEmulator(ReporterOptions.builder().printBlankLineBetweenTests(true)
+                .batchOutput(true).build(), NestedExampleTest.class).run();
+
+        assertThat(unbatched).contains("");
+        assertThat(batched).hasSize(1);
+        assertThat(batched.get(0).split(System.lineSeparator(), -1)).hasSameSizeAs(unbatched);
+    }
+}
@@ -0,0 +1,84 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.surefire.api.report.RunMode;
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactReportEntriesTest {
+
+    Utf8RecodingDeferredFileOutputStream stdout = new Utf8RecodingDeferredFileOutputStream("stdout");
+    Utf8RecodingDeferredFileOutputStream stderr = new Utf8RecodingDeferredFileOutputStream("stderr");
+
+    @Test
+    void keepsWhatTheTreeNeeds() {
+        CompactReportEntries entries = new CompactReportEntries(ReporterOptions.builder().build());
+
+        entries.add(entry("Outer$Inner", "Outer Inner", "test(int)[1]", "[1]", null, ReportEntryType.SUCCESS, 12));
+        entries.add(entry("Outer$Inner", "Outer Inner", "skipped()", null, "for demonstration", ReportEntryType.SKIPPED, null));
+        entries.add(entry("Outer$Inner", "Outer Inner", "failed()", "failed()", null, ReportEntryType.FAILURE, 3));
+
+        assertThat(entries).hasSize(3);
+        WrappedReportEntry success = entries.get(0);
+        assertThat(success.getSourceName()).isEqualTo("Outer$Inner");
+        assertThat(success.getSourceText()).isEqualTo("Outer Inner");
+        assertThat(success.getName()).isEqualTo("test(int)[1]");
+        assertThat(success.getReportName()).isEqualTo("[1]");
+        assertThat(success.getElapsed()).isEqualTo(12);
+        assertThat(success.isSucceeded()).isTrue();
+        assertThat(success.getStdout()).isNull();
+        WrappedReportEntry skipped = entries.get(1);
+        assertThat(skipped.isSkipped()).isTrue();
+        assertThat(skipped.getNameText()).isNull();
+        assertThat(skipped.getMessage()).isEqualTo("for demonstration");
+        assertThat(skipped.getElapsed()).isNull();
+        assertThat(entries.get(2).isErrorOrFailure()).isTrue();
+        assertThat(entries.get(2).getStdout()).isNull();
+    }
+
+    @Test
+    void keepsEntriesWithPrintedDetailsInFull() {
+        CompactReportEntries entries = new CompactReportEntries(ReporterOptions.builder().printStacktraceOnFailure(true).build());
+        WrappedReportEntry failure = entry("Test", "Test", "failed()", "failed()", null, ReportEntryType.FAILURE, 3);
+
+        entries.add(entry("Test", "Test", "passed()", "passed()", null, ReportEntryType.SUCCESS, 1));
+        entries.add(failure);
+
+        assertThat(entries.get(0).getStdout()).isNull();
+        assertThat(entries.get(1)).isSameAs(failure);
+
+        entries.clear();
+        assertThat(entries).isEmpty();
+    }
+
+    @Test
+    void boundsHeapOfMillionBufferedEntries() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long before = usedHeap(memory);
+
+        CompactReportEntries entries = new CompactReportEntries(ReporterOptions.builder().build());
+        for (int i = 0; i < 1_000_000; i++) {
+            entries.add(entry("com.example.SomeTest$Nested", "SomeTest Nested", "test(int)[" + i + "]", "[" + i + "]",
+                    null, ReportEntryType.SUCCESS, i % 1000));
+        }
+
+        long perEntry = (usedHeap(memory) - before) / entries.size();
+        assertThat(perEntry).isLessThan(128);
+        assertThat(entries.get(999_999).getReportName()).isEqualTo("[999999]");
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private WrappedReportEntry entry(String sourceName, String sourceText, String name, String nameText,
+                                     String message, ReportEntryType type, Integer elapsed) {
+        SimpleReportEntry entry = new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, sourceName, sourceText, name, nameText, message);
+        return new WrappedReportEntry(entry, type, elapsed, stdout, stderr);
+    }
+}
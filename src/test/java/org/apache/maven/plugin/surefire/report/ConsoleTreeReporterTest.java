@@ -1,15 +1,24 @@
 package org.apache.maven.plugin.surefire.report;
 
+import org.apache.maven.plugin.surefire.NestedExampleTest;
 import org.apache.maven.plugin.surefire.VeryNestedExampleTest;
 import org.apache.maven.plugin.surefire.log.PluginConsoleLogger;
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
 import org.apache.maven.surefire.api.report.RunMode;
 import org.apache.maven.surefire.api.report.SimpleReportEntry;
-import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -21,11 +30,6 @@ class ConsoleTreeReporterTest {
 
     static Logger logger = LoggerFactory.getLogger(ConsoleTreeReporterTest.class);
 
-    @BeforeEach
-    void cleanNode() {
-        Node.clearTree();
-    }
-
     @Test
     void testEmulator() {
         // Now we can check the output of any Test class using this
@@ -36,6 +40,78 @@ class ConsoleTreeReporterTest {
         assertThat(logs).isNotEmpty();
     }
 
+    @Test
+    void asyncOutputMatchesSynchronousOutput() throws InterruptedException {
+        List<String> expected = new SurefireEmulator(VeryNestedExampleTest.class).run();
+        ReporterOptions options = ReporterOptions.builder().theme(Theme.UNICODE).asyncOutput(true).asyncQueueSize(1).build();
+
+        List<String> logs = new SurefireEmulator(options, VeryNestedExampleTest.class).run();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (logs.size() < expected.size() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(logs).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void compactEntriesPrintTheSameTree() {
+        for (Class<?> testClass : new Class<?>[]{VeryNestedExampleTest.class, NestedExampleTest.class}) {
+            List<String> expected = new SurefireEmulator(testClass).run();
+            ReporterOptions options = ReporterOptions.builder().theme(Theme.UNICODE).compactEntries(true).build();
+
+            assertThat(new SurefireEmulator(options, testClass).run()).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void streamsNestedClassesAsSoonAsTheirLinesAreFinal() {
+        EmulatorLogger emulatorLogger = new EmulatorLogger();
+        ConsoleTreeReporter reporter = new ConsoleTreeReporter(emulatorLogger, ReporterOptions.builder().streamNestedTests(true).build());
+        List<String> lines = emulatorLogger.getLogList();
+
+        // JUnit runs the tests of a class before its nested classes, the stats hold what ran since the last completion
+        reporter.testSetStarting(classEntry("Outer"));
+        reporter.testSetStarting(classEntry("Outer$A"));
+        reporter.testSetStarting(classEntry("Outer$A$B"));
+        reporter.testSetCompleted(wrap(classEntry("Outer$A$B")),
+                stats(testEntry("Outer", "Outer", "t1"), testEntry("Outer$A", "Outer A", "a1"), testEntry("Outer$A$B", "Outer A B", "b1")), null);
+        assertThat(lines).containsExactly(
+                ".--Outer",
+                "|  '-- [OK] t1 - 0.001 s");
+
+        reporter.testSetCompleted(wrap(classEntry("Outer$A")), stats(), null);
+        reporter.testSetStarting(classEntry("Outer$C"));
+        assertThat(lines).hasSize(6);
+
+        reporter.testSetCompleted(wrap(classEntry("Outer$C")), stats(testEntry("Outer$C", "Outer C", "c1")), null);
+        assertThat(lines).hasSize(6);
+
+        reporter.testSetCompleted(wrap(classEntry("Outer")), stats(), null);
+        assertThat(lines).containsExactly(
+                ".--Outer",
+                "|  '-- [OK] t1 - 0.001 s",
+                "+--.--A - 0.001 s",
+                "|  |  '-- [OK] a1 - 0.001 s",
+                "|  '-----B - 0.001 s",
+                "|        '-- [OK] b1 - 0.001 s",
+                "'-----C - 0.001 s",
+                "      '-- [OK] c1 - 0.001 s");
+    }
+
+    @Test
+    void streamsTheSameTreeLessTheTimeOfClassesPrintedEarly() {
+        List<String> expected = new SurefireEmulator(VeryNestedExampleTest.class).run();
+        ReporterOptions options = ReporterOptions.builder().theme(Theme.UNICODE).streamNestedTests(true).build();
+
+        List<String> logs = new SurefireEmulator(options, VeryNestedExampleTest.class).run();
+
+        assertThat(logs).hasSameSizeAs(expected);
+        for (int i = 0; i < logs.size(); i++) {
+            assertThat(expected.get(i)).isIn(logs.get(i), logs.get(i) + " - 0.001 s");
+        }
+    }
+
     @Test
     void testSetStarting() {
         //Runs 4 times for this class
@@ -153,8 +229,186 @@ class ConsoleTreeReporterTest {
         consoleTreeReporter.testSetCompleted(wrappedReportEntry3, testSetStatsForClass, null);
         consoleTreeReporter.testSetCompleted(wrappedReportEntry2, testSetStatsForClass, null);
         consoleTreeReporter.testSetCompleted(wrappedReportEntry6, testSetStatsForClass, null);
+    }
+
+    @Test
+    void releasesEverythingOfClosedModuleBuilds() throws InterruptedException {
+        List<WeakReference<?>> references = new ArrayList<>();
+        for (int module = 0; module < 10; module++) references.addAll(buildIncompleteModule(module, true));
+
+        awaitCollected(references);
+        // the watchdog timer and the asynchronous writer stop once idle
+        for (int i = 0; i < 50 && !reporterThreads().isEmpty(); i++) TimeUnit.MILLISECONDS.sleep(100);
+        assertThat(reporterThreads()).isEmpty();
+    }
+
+    @Test
+    void releasesIncompleteTreesOfReportersNeverClosed() {
+        List<WeakReference<?>> references = new ArrayList<>();
+        for (int module = 0; module < 10; module++) references.addAll(buildIncompleteModule(module, false));
+
+        awaitCollected(references);
+    }
+
+    /**
+     * A thousand module builds, as in a Maven daemon running for days. Slow, so only run with the {@code soak} profile.
+     */
+    @Test
+    @Tag("soak")
+    void keepsTheHeapFlatOverThousandModuleBuilds() {
+        for (int module = 0; module < 50; module++) buildIncompleteModule(module, module % 2 == 0);
+        long baseline = usedHeapAfterGc();
 
+        for (int module = 50; module < 1050; module++) buildIncompleteModule(module, module % 2 == 0);
+
+        // a module keeping its trees would retain over 50 KB, so 50 MB over the thousand builds
+        assertThat(usedHeapAfterGc() - baseline).isLessThan(16 * 1024 * 1024);
+    }
+
+    @Test
+    void releasesCompletedTreesOnReset() {
+        ConsoleTreeReporter reporter = new ConsoleTreeReporter(new NullConsoleLogger(),
+                ReporterOptions.builder().nestedTestsTimeoutSeconds(60).build());
+
+        awaitCollected(completeNestedClass(reporter, "soak.Completed"));
+        reporter.close();
+    }
+
+    @Test
+    void reportsModulesWithTheSameClassesInParallel() throws Exception {
+        List<String> expected = buildModule();
+        ExecutorService modules = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> outputs = new ArrayList<>();
+            for (int module = 0; module < 32; module++) outputs.add(modules.submit(this::buildModule));
+
+            for (Future<List<String>> output : outputs) {
+                assertThat(output.get(60, TimeUnit.SECONDS)).isEqualTo(expected);
+            }
+        } finally {
+            modules.shutdownNow();
+        }
+    }
+
+    @Test
+    void boundsTheLinesOfGeneratedTests() {
+        EmulatorLogger logger = new EmulatorLogger(new NullConsoleLogger());
+        ConsoleTreeReporter reporter = new ConsoleTreeReporter(logger, ReporterOptions.builder().maxInvocationLines(10).build());
+        SyntheticSuite suite = SyntheticSuite.builder().classes(2).testsPerClass(5).parameterizedRatio(1).fanOut(10_000)
+                .failureRatio(0.0001).elapsedSigma(0).build();
+
+        suite.run(reporter);
+
+        long failures = suite.getCount(ReportEntryType.FAILURE);
+        // per method: the sample, the line telling how many were left out and the failures
+        assertThat(logger.getLogList()).hasSize((int) (2 + 2 * 5 * (10 + 1) + failures));
+        assertThat(logger.getLogList()).filteredOn(line -> line.contains("more passed invocations")).hasSize(10);
+    }
+
+    /**
+     * A module whose classes have the same names in every build, each with nested classes.
+     */
+    private List<String> buildModule() {
+        EmulatorLogger logger = new EmulatorLogger(new NullConsoleLogger());
+        ConsoleTreeReporter reporter = new ConsoleTreeReporter(logger, ReporterOptions.builder().build());
+        SyntheticSuite.builder().packageName("same").classes(50).nestedClasses(2).depth(2).testsPerClass(10)
+                .failureRatio(0.1).elapsedSigma(0).build().run(reporter);
+        return logger.getLogList();
+    }
+
+    /**
+     * Builds a module with a reporter of its own, as in a long-lived Maven daemon, leaving a class whose nested class
+     * never completed. Returns weak references to the reporter and to the results of that class.
+     */
+    private List<WeakReference<?>> buildIncompleteModule(int module, boolean close) {
+        ReporterOptions.Builder options = ReporterOptions.builder().asyncOutput(module % 2 == 0)
+                .batchOutput(module % 3 == 0).compactEntries(module % 5 == 0);
+        // the timer of a reporter never closed runs until the timeout passed, so only the shutdown hook is left then
+        options = close ? options.nestedTestsTimeoutSeconds(60) : options.maxBufferedNestedEntries(10_000);
+        ConsoleTreeReporter reporter = new ConsoleTreeReporter(new NullConsoleLogger(), options.build());
+        String packageName = "soak.module" + module;
+        try (SyntheticSuite suite = SyntheticSuite.builder().packageName(packageName).classes(5).nestedClasses(2)
+                .depth(1).testsPerClass(20).failureRatio(0.05).seed(module).build()) {
+            suite.run(reporter);
+        }
+        String incomplete = packageName + ".Incomplete";
+        reporter.testSetStarting(classEntry(incomplete));
+        reporter.testSetStarting(classEntry(incomplete + "$Never"));
+        List<WeakReference<?>> references = completeNestedClass(reporter, incomplete + "$Done");
+        if (close) reporter.close();
+        references.add(new WeakReference<>(reporter));
+        return references;
     }
 
+    /**
+     * Runs the nested class {@code sourceName}, or a nested class of the top-level class {@code sourceName} and then
+     * that class, resetting the reporter after each. Returns weak references to the results of the nested class.
+     */
+    private List<WeakReference<?>> completeNestedClass(ConsoleTreeReporter reporter, String sourceName) {
+        boolean topLevel = sourceName.indexOf('$') < 0;
+        String nestedName = topLevel ? sourceName + "$Nested" : sourceName;
+        if (topLevel) reporter.testSetStarting(classEntry(sourceName));
+        reporter.testSetStarting(classEntry(nestedName));
+        TestSetStats stats = new TestSetStats(false, true);
+        List<WeakReference<?>> references = new ArrayList<>();
+        for (int test = 0; test < 100; test++) {
+            WrappedReportEntry entry = new WrappedReportEntry(new SimpleReportEntry(RunMode.NORMAL_RUN, 123L,
+                    nestedName, null, "test" + test + "()", null), ReportEntryType.SUCCESS, 1, stdout, stderr);
+            stats.testSucceeded(entry);
+            references.add(new WeakReference<>(entry));
+        }
+        complete(reporter, nestedName, stats);
+        if (topLevel) complete(reporter, sourceName, new TestSetStats(false, true));
+        return references;
+    }
 
+    private void complete(ConsoleTreeReporter reporter, String sourceName, TestSetStats stats) {
+        reporter.testSetCompleted(new WrappedReportEntry(classEntry(sourceName), ReportEntryType.SUCCESS, 100,
+                stdout, stderr), stats, null);
+        reporter.reset();
+    }
+
+    private static void awaitCollected(List<WeakReference<?>> references) {
+        for (int i = 0; i < 50 && references.stream().anyMatch(reference -> reference.get() != null); i++) {
+            System.gc();
+        }
+        assertThat(references).allMatch(reference -> reference.get() == null);
+    }
+
+    /**
+     * The lowest heap usage seen over a few collections, as a single one may leave garbage behind.
+     */
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static SimpleReportEntry classEntry(String sourceName) {
+        return new SimpleReportEntry(RunMode.NORMAL_RUN, 123L, sourceName, sourceName.substring(sourceName.lastIndexOf('.') + 1)
+                .replace('$', ' '), null, null);
+    }
+
+    private WrappedReportEntry testEntry(String sourceName, String sourceText, String name) {
+        return wrap(new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, sourceName, sourceText, name, name));
+    }
+
+    private WrappedReportEntry wrap(SimpleReportEntry entry) {
+        return new WrappedReportEntry(entry, ReportEntryType.SUCCESS, 1, stdout, stderr);
+    }
+
+    private static TestSetStats stats(WrappedReportEntry... tests) {
+        TestSetStats stats = new TestSetStats(false, true);
+        for (WrappedReportEntry test : tests) stats.testSucceeded(test);
+        return stats;
+    }
+
+    private static List<String> reporterThreads() {
+        return Thread.getAllStackTraces().keySet().stream().map(Thread::getName)
+                .filter(name -> name.startsWith("surefire-tree-")).collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,205 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DetailBudgetTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    List<String> lines = new ArrayList<>();
+
+    @Test
+    void printsOutputWithinBudget() throws IOException {
+        DetailBudget budget = budget(ReporterOptions.builder().maxDetailLines(10).maxDetailBytes(1000));
+
+        budget.print(capture(5), "Test.test-stdout", this::println);
+
+        assertThat(lines).containsExactly("line 0", "line 1", "line 2", "line 3", "line 4");
+        assertThat(spillDirectory).isEmptyDirectory();
+    }
+
+    @Test
+    void printsHeadAndTailOfOutputOverLineBudget() throws IOException {
+        DetailBudget budget = budget(ReporterOptions.builder().maxDetailLines(100).detailHeadLines(3).detailTailLines(2));
+
+        budget.print(capture(1000), "Test.test-stdout", this::println);
+
+        Path file = spilled(spillDirectory);
+        assertThat(file.getFileName().toString()).startsWith("Test.test-stdout-").endsWith(".txt");
+        assertThat(lines).hasSize(6);
+        assertThat(lines.subList(0, 3)).containsExactly("line 0", "line 1", "line 2");
+        assertThat(lines.get(3)).contains("995 lines omitted", file.toAbsolutePath().toString());
+        assertThat(lines.subList(4, 6)).containsExactly("line 998", "line 999");
+        assertThat(new String(Files.readAllBytes(file), UTF_8)).isEqualTo(text(1000));
+    }
+
+    @Test
+    void truncatesOutputOverByteBudget() throws IOException {
+        DetailBudget budget = budget(ReporterOptions.builder().maxDetailBytes(100).detailHeadLines(1).detailTailLines(1));
+
+        budget.print(capture(50), "Test.test-stderr", this::println);
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).isEqualTo("line 0");
+        assertThat(lines.get(1)).contains("48 lines omitted");
+        assertThat(lines.get(2)).isEqualTo("line 49");
+        assertThat(printedBytes()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void cutsLongLinesToTheByteBudget() throws IOException {
+        DetailBudget budget = budget(ReporterOptions.builder().maxDetailBytes(1000).detailHeadLines(3).detailTailLines(3));
+        Utf8RecodingDeferredFileOutputStream stream = new Utf8RecodingDeferredFileOutputStream("stdout");
+        for (int i = 0; i < 10; i++) stream.write(repeat((char) ('a' + i), 1000), true);
+
+        budget.print(stream, "Test.test-stdout", this::println);
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).isEqualTo(repeat('a', 500));
+        assertThat(lines.get(1)).contains("8 lines omitted (9000 bytes)");
+        assertThat(lines.get(2)).isEqualTo(repeat('j', 500));
+        assertThat(printedBytes()).isEqualTo(1000);
+        assertThat(spilled(spillDirectory)).hasSize(10 * (1000 + System.lineSeparator().length()));
+    }
+
+    @Test
+    void neverCutsACharacterInTwo() throws IOException {
+        DetailBudget budget = budget(ReporterOptions.builder().maxDetailBytes(10).detailHeadLines(1).detailTailLines(1));
+
+        budget.print(repeat('\u00e9', 20), "Test.test-stacktrace", this::println);
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).isEqualTo(repeat('\u00e9', 2));
+        assertThat(lines.get(1)).contains("0 lines omitted (36 bytes)");
+    }
+
+    @Test
+    void truncatesStackTraceOverLineBudget() throws IOException {
+        DetailBudget budget = budget(ReporterOptions.builder().maxDetailLines(10).detailHeadLines(2).detailTailLines(0));
+
+        budget.print(text(20), "Test.test-stacktrace", this::println);
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(2)).contains("18 lines omitted");
+        assertThat(spilled(spillDirectory)).hasContent(text(20));
+    }
+
+    @Test
+    void spillsToTheReportsDirectoryByDefault() throws IOException {
+        Path reportsDirectory = spillDirectory.resolve("module/target/surefire-reports");
+        DetailBudget budget = new DetailBudget(ReporterOptions.builder().maxDetailLines(10).detailHeadLines(2)
+                .detailTailLines(0).reportsDirectory(reportsDirectory::toFile).build());
+
+        budget.print(text(20), "Test.test-stacktrace", this::println);
+
+        assertThat(lines.get(2)).contains(reportsDirectory.toAbsolutePath().toString());
+        assertThat(spilled(reportsDirectory)).hasContent(text(20));
+    }
+
+    @Test
+    void printsEverythingWithoutBudget() throws IOException {
+        DetailBudget budget = budget(ReporterOptions.builder());
+
+        budget.print(capture(1000), "Test.test-stdout", this::println);
+
+        assertThat(budget.isUnlimited()).isTrue();
+        assertThat(lines).hasSize(1000);
+    }
+
+    @Test
+    void sanitizesFileNames() {
+        assertThat(DetailBudget.fileName("a.b$C.test(String)[1]-stdout", 7)).isEqualTo("a.b$C.test_String__1_-stdout-7.txt");
+    }
+
+    @Test
+    void spillsTestsSharingANameToFilesOfTheirOwn() throws IOException {
+        DetailBudget budget = budget(ReporterOptions.builder().maxDetailLines(10).detailHeadLines(1).detailTailLines(0));
+        String longName = "Test." + repeat('x', 300);
+
+        budget.print(text(20), longName + "a-stacktrace", this::println);
+        budget.print(text(30), longName + "b-stacktrace", this::println);
+        budget.print(text(40), "Test.repeated()-stacktrace", this::println);
+        budget.print(text(50), "Test.repeated()-stacktrace", this::println);
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(spillDirectory)) {
+            files = list.collect(Collectors.toList());
+        }
+        assertThat(files).hasSize(4);
+        assertThat(files).allSatisfy(file -> assertThat(file.getFileName().toString()).hasSizeLessThanOrEqualTo(200));
+        assertThat(files.stream().map(DetailBudgetTest::lineCount)).containsExactlyInAnyOrder(20L, 30L, 40L, 50L);
+    }
+
+    @Test
+    void keepsTheNumberOfTheSpillInLongFileNames() {
+        String fileName = DetailBudget.fileName("Test." + repeat('x', 300), 1234);
+
+        assertThat(fileName).hasSize(200).endsWith("x-1234.txt");
+    }
+
+    private DetailBudget budget(ReporterOptions.Builder options) {
+        return new DetailBudget(options.detailSpillDirectory(spillDirectory.toString()).build());
+    }
+
+    /**
+     * The only file spilled to {@code directory}.
+     */
+    private static Path spilled(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> spilled = files.collect(Collectors.toList());
+            assertThat(spilled).hasSize(1);
+            return spilled.get(0);
+        }
+    }
+
+    private static long lineCount(Path file) {
+        try (Stream<String> lines = Files.lines(file, UTF_8)) {
+            return lines.count();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Bytes of the printed lines, the omission line left out.
+     */
+    private long printedBytes() {
+        return lines.stream().filter(line -> !line.contains("omitted")).mapToLong(line -> line.getBytes(UTF_8).length).sum();
+    }
+
+    private void println(CharSequence line) {
+        lines.add(line.toString());
+    }
+
+    private static Utf8RecodingDeferredFileOutputStream capture(int lines) throws IOException {
+        Utf8RecodingDeferredFileOutputStream stream = new Utf8RecodingDeferredFileOutputStream("stdout");
+        for (int i = 0; i < lines; i++) stream.write("line " + i, true);
+        return stream;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static String text(int lines) {
+        return IntStream.range(0, lines).mapToObj(i -> "line " + i + System.lineSeparator()).collect(Collectors.joining());
+    }
+}
@@ -0,0 +1,87 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.PluginConsoleLogger;
+import org.apache.maven.plugin.surefire.log.api.ConsoleLogger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Console logger that keeps every printed line, so tests can assert the tree output,
+ * while still forwarding the lines to the regular test log.
+ * <p>
+ * Lines may come from several threads, read them once the threads writing are done.
+ */
+public class EmulatorLogger implements ConsoleLogger {
+
+    private final List<String> logList = Collections.synchronizedList(new ArrayList<>());
+    private final ConsoleLogger delegate;
+
+    public EmulatorLogger() {
+        this(new PluginConsoleLogger(LoggerFactory.getLogger(EmulatorLogger.class)));
+    }
+
+    public EmulatorLogger(ConsoleLogger delegate) {
+        this.delegate = delegate;
+    }
+
+    public List<String> getLogList() {
+        return logList;
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(String message) {
+        delegate.debug(message);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return true;
+    }
+
+    @Override
+    public void info(String message) {
+        logList.add(message);
+        delegate.info(message);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isWarnEnabled();
+    }
+
+    @Override
+    public void warning(String message) {
+        logList.add(message);
+        delegate.warning(message);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isErrorEnabled();
+    }
+
+    @Override
+    public void error(String message) {
+        logList.add(message);
+        delegate.error(message);
+    }
+
+    @Override
+    public void error(String message, Throwable t) {
+        logList.add(message);
+        delegate.error(message, t);
+    }
+
+    @Override
+    public void error(Throwable t) {
+        delegate.error(t);
+    }
+}
@@ -0,0 +1,77 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ForkAggregatorTest {
+
+    EmulatorLogger logger = new EmulatorLogger(new NullConsoleLogger());
+
+    @Test
+    void writesTheTreesOfManyForksWhole() throws Exception {
+        ReporterOptions options = ReporterOptions.builder().aggregateForks(true).build();
+        Set<String> trees = new HashSet<>();
+        int treeCount = 0;
+        for (int fork = 0; fork < 32; fork++) {
+            EmulatorLogger alone = new EmulatorLogger(new NullConsoleLogger());
+            runFork(new ConsoleTreeReporter(alone, ReporterOptions.builder().build()), fork);
+            List<String> forkTrees = trees(alone.getLogList());
+            trees.addAll(forkTrees);
+            treeCount += forkTrees.size();
+        }
+
+        ForkAggregator aggregator = new ForkAggregator(logger, options);
+        ExecutorService forks = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int fork = 0; fork < 32; fork++) {
+                int id = fork;
+                ConsoleTreeReporter reporter = new ConsoleTreeReporter(logger, options, aggregator);
+                runs.add(forks.submit(() -> {
+                    runFork(reporter, id);
+                    reporter.close();
+                }));
+            }
+            for (Future<?> run : runs) run.get(60, TimeUnit.SECONDS);
+        } finally {
+            forks.shutdownNow();
+        }
+
+        List<String> aggregated = trees(logger.getLogList());
+        assertThat(aggregated).hasSize(treeCount);
+        assertThat(trees).containsAll(aggregated);
+    }
+
+    private static void runFork(ConsoleTreeReporter reporter, int fork) {
+        SyntheticSuite.builder().packageName("fork" + fork).classes(20).nestedClasses(2).depth(1).testsPerClass(10)
+                .failureRatio(0.1).elapsedSigma(0).seed(fork).build().run(reporter);
+    }
+
+    /**
+     * Splits lines into whole trees, each starting with its top-level class.
+     */
+    private static List<String> trees(List<String> lines) {
+        List<String> trees = new ArrayList<>();
+        StringBuilder tree = null;
+        for (String line : lines) {
+            if (line.startsWith(".--") || line.startsWith("---")) {
+                if (tree != null) trees.add(tree.toString());
+                tree = new StringBuilder();
+            }
+            if (tree != null) tree.append(line).append('\n');
+        }
+        if (tree != null) trees.add(tree.toString());
+        return trees;
+    }
+}
@@ -0,0 +1,75 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineSplittingOutputStreamTest {
+
+    List<String> lines = new ArrayList<>();
+    LineSplittingOutputStream stream = new LineSplittingOutputStream(line -> lines.add(line.toString()));
+
+    @Test
+    void splitsOnEveryLineTerminator() {
+        write("unix\nwindows\r\nmac\rlast");
+        stream.close();
+
+        assertThat(lines).containsExactly("unix", "windows", "mac", "last");
+    }
+
+    @Test
+    void keepsEmptyLinesButNoneAfterTheLastTerminator() {
+        write("first\n\nthird\n");
+        stream.close();
+
+        assertThat(lines).containsExactly("first", "", "third");
+    }
+
+    @Test
+    void decodesCharactersSplitAcrossWrites() {
+        for (byte b : "é ✔ 𝄞\n".getBytes(UTF_8)) stream.write(b);
+        stream.close();
+
+        assertThat(lines).containsExactly("é ✔ 𝄞");
+    }
+
+    @Test
+    void splitsLinesLongerThanTheLimit() {
+        char[] line = new char[LineSplittingOutputStream.MAX_LINE_LENGTH * 2 + 10];
+        Arrays.fill(line, 'x');
+        write(new String(line));
+        stream.close();
+
+        assertThat(lines).extracting(String::length)
+                .containsExactly(LineSplittingOutputStream.MAX_LINE_LENGTH, LineSplittingOutputStream.MAX_LINE_LENGTH, 10);
+    }
+
+    @Test
+    void streamsHalfAGigabyteInConstantMemory() {
+        long[] count = new long[1];
+        LineSplittingOutputStream counting = new LineSplittingOutputStream(line -> count[0]++);
+        byte[] chunk = new byte[64 * 1024];
+        for (int i = 0; i < chunk.length; i++) chunk[i] = (byte) (i % 64 == 63 ? '\n' : 'a' + i % 26);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 500 * 16; i++) counting.write(chunk, 0, chunk.length);
+        counting.close();
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(count[0]).isEqualTo(500L * 1024 * 1024 / 64);
+        assertThat(allocated).isLessThan(1024 * 1024);
+    }
+
+    private void write(String text) {
+        byte[] bytes = text.getBytes(UTF_8);
+        stream.write(bytes, 0, bytes.length);
+    }
+}
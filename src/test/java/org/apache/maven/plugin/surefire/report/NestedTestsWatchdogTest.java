@@ -0,0 +1,117 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.apache.maven.surefire.api.report.RunMode;
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NestedTestsWatchdogTest {
+
+    Utf8RecodingDeferredFileOutputStream stdout = new Utf8RecodingDeferredFileOutputStream("stdout");
+    Utf8RecodingDeferredFileOutputStream stderr = new Utf8RecodingDeferredFileOutputStream("stderr");
+
+    Node tree = Node.createRoot();
+    EmulatorLogger logger = new EmulatorLogger(new NullConsoleLogger());
+    List<String> lines = logger.getLogList();
+
+    @Test
+    void printsTreeBufferingTooManyEntries() {
+        NestedTestsWatchdog watchdog = watchdog(ReporterOptions.builder().maxBufferedNestedEntries(2));
+
+        start(watchdog, "SizeOuter", "SizeOuter$A", "SizeOuter$B");
+        complete(watchdog, "SizeOuter$A", test("SizeOuter", "t1"), test("SizeOuter$A", "a1"));
+        assertThat(lines).isEmpty();
+
+        complete(watchdog, "SizeOuter$B", test("SizeOuter$B", "b1"));
+        assertThat(lines).containsExactly(
+                ".--SizeOuter - not completed",
+                "|  '-- [OK] t1 - 0.001 s",
+                "+-----A - 0.001 s",
+                "|     '-- [OK] a1 - 0.001 s",
+                "'-----B - 0.001 s",
+                "      '-- [OK] b1 - 0.001 s");
+        assertThat(tree.hasBranches()).isFalse();
+        assertThat(tree.getNestedClassBuffers().isEmpty()).isTrue();
+    }
+
+    @Test
+    void printsLateClassesOnTheirOwn() {
+        NestedTestsWatchdog watchdog = watchdog(ReporterOptions.builder().maxBufferedNestedEntries(1));
+
+        start(watchdog, "LateOuter", "LateOuter$A", "LateOuter$B");
+        complete(watchdog, "LateOuter$A", test("LateOuter", "t1"), test("LateOuter$A", "a1"));
+        lines.clear();
+        complete(watchdog, "LateOuter$B", test("LateOuter$B", "b1"));
+
+        assertThat(lines).containsExactly(
+                "'-----LateOuter B - 0.001 s",
+                "      '-- [OK] b1 - 0.001 s");
+    }
+
+    @Test
+    void printsTreeWithoutEventsForTooLong() throws InterruptedException {
+        NestedTestsWatchdog watchdog = watchdog(ReporterOptions.builder().nestedTestsTimeoutSeconds(1));
+
+        start(watchdog, "TimeOuter", "TimeOuter$A", "TimeOuter$B");
+        complete(watchdog, "TimeOuter$A", test("TimeOuter$A", "a1"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (lines.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(lines).contains("'-----B - not completed");
+    }
+
+    @Test
+    void printsPendingTreesAtTheEnd() {
+        NestedTestsWatchdog watchdog = watchdog(ReporterOptions.builder());
+
+        start(watchdog, "EndOuter", "EndOuter$A");
+        complete(watchdog, "EndOuter$A", test("EndOuter$A", "a1"));
+        assertThat(lines).isEmpty();
+
+        watchdog.printAll();
+
+        assertThat(lines).containsExactly(
+                ".--EndOuter - not completed",
+                "'-----A - 0.001 s",
+                "      '-- [OK] a1 - 0.001 s");
+    }
+
+    private NestedTestsWatchdog watchdog(ReporterOptions.Builder options) {
+        ReporterOptions reporterOptions = options.build();
+        return new NestedTestsWatchdog(tree, new TreePrinter(logger, reporterOptions), reporterOptions);
+    }
+
+    private void start(NestedTestsWatchdog watchdog, String... sourceNames) {
+        for (String sourceName : sourceNames) {
+            SimpleReportEntry report = classEntry(sourceName);
+            watchdog.handle(sourceName, () -> new TestReportHandler(tree, report).prepare());
+        }
+    }
+
+    private void complete(NestedTestsWatchdog watchdog, String sourceName, WrappedReportEntry... tests) {
+        TestSetStats stats = new TestSetStats(false, true);
+        for (WrappedReportEntry test : tests) stats.testSucceeded(test);
+        WrappedReportEntry report = wrap(classEntry(sourceName));
+        TreePrinter treePrinter = new TreePrinter(logger, ReporterOptions.builder().build());
+        watchdog.handle(sourceName, () -> new TestReportHandler(tree, report, stats).print(treePrinter));
+    }
+
+    private static SimpleReportEntry classEntry(String sourceName) {
+        return new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, sourceName, sourceName.replace('$', ' '), null, null);
+    }
+
+    private WrappedReportEntry test(String sourceName, String name) {
+        return wrap(new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, sourceName, sourceName.replace('$', ' '), name, name));
+    }
+
+    private WrappedReportEntry wrap(SimpleReportEntry entry) {
+        return new WrappedReportEntry(entry, ReportEntryType.SUCCESS, 1, stdout, stderr);
+    }
+}
@@ -5,34 +5,43 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 class NodeTest {
 
+    Node root;
+
     @BeforeEach
     void setup() {
-       Node.clearTree();
+       root = Node.createRoot();
     }
 
     @Test
     void addNode() {
         //Given I have a empty ROOT
-        Node root = Node.getRoot();
         assertThat(root.getName()).isEqualTo("ROOT");
-        assertThat(root.branches).isEmpty();
+        assertThat(root.getBranches()).isEmpty();
 
         //When I add 5 children in sequence
         Node child = root.addChildren("how", "are", "you", "?");
-        assertThat(root.branches).hasSize(1);
-        assertThat(root.branches.get(0).getName()).isEqualTo("how");
+        assertThat(root.getBranches()).hasSize(1);
+        assertThat(root.getBranches().get(0).getName()).isEqualTo("how");
         assertThat(child.getName()).isEqualTo("?");
         assertThat(child.getParent().getName()).isEqualTo("you");
 
         //And then add more 3 items in the middle of the tree
         Node areNode = root.getBranchNode(Lists.newArrayList("how", "are")).get();
-        assertThat(areNode.branches).hasSize(1);
+        assertThat(areNode.getBranches()).hasSize(1);
 
         //I should have a node with two branches in a tree that looks like this
         /*
@@ -49,7 +58,7 @@ class NodeTest {
         Node newChild = areNode.addChildren("your", "parents");
         assertThat(newChild.getName()).isEqualTo("parents");
         assertThat(newChild.getParent().getName()).isEqualTo("your");
-        assertThat(areNode.branches).hasSize(2);
+        assertThat(areNode.getBranches()).hasSize(2);
     }
 
     @Nested
@@ -57,7 +66,6 @@ class NodeTest {
 
         @Test
         void getBranchNode_returnsNodeWhenExists() {
-            Node root = Node.getRoot();
             root.addChildren("TestClass");
 
             Optional<Node> result = root.getBranchNode("TestClass");
@@ -68,7 +76,6 @@ class NodeTest {
 
         @Test
         void getBranchNode_returnsEmptyWhenNotExists() {
-            Node root = Node.getRoot();
             root.addChildren("TestClass");
 
             Optional<Node> result = root.getBranchNode("NonExistentClass");
@@ -78,7 +85,6 @@ class NodeTest {
 
         @Test
         void containsBranch_returnsTrueWhenExists() {
-            Node root = Node.getRoot();
             root.addChildren("TestClass");
 
             assertThat(root.containsBranch("TestClass")).isTrue();
@@ -86,7 +92,6 @@ class NodeTest {
 
         @Test
         void containsBranch_returnsFalseWhenNotExists() {
-            Node root = Node.getRoot();
             root.addChildren("TestClass");
 
             assertThat(root.containsBranch("NonExistentClass")).isFalse();
@@ -94,7 +99,6 @@ class NodeTest {
 
         @Test
         void getBranchNode_withPath_returnsDeepNestedNode() {
-            Node root = Node.getRoot();
             root.addChildren("OuterClass", "InnerClass", "DeepInnerClass");
 
             Optional<Node> result = root.getBranchNode(
@@ -106,7 +110,6 @@ class NodeTest {
 
         @Test
         void getBranchNode_withPath_returnsEmptyForPartialPath() {
-            Node root = Node.getRoot();
             root.addChildren("OuterClass", "InnerClass");
 
             Optional<Node> result = root.getBranchNode(
@@ -117,8 +120,6 @@ class NodeTest {
 
         @Test
         void lookupPerformance_withManyBranches() {
-            Node root = Node.getRoot();
-
             // Add many branches to simulate a large test suite
             for (int i = 0; i < 1000; i++) {
                 root.addChildren("TestClass" + i);
@@ -137,12 +138,103 @@ class NodeTest {
         }
     }
 
+    @Nested
+    class IndexTests {
+
+        @Test
+        void addPath_createsSameNodesAsAddChildren() {
+            Node deep = root.addPath("Outer$Inner$Deeper");
+
+            assertThat(deep.getName()).isEqualTo("Deeper");
+            assertThat(deep.getDepth()).isEqualTo(3);
+            assertThat(root.addChildren("Outer", "Inner", "Deeper")).isSameAs(deep);
+            assertThat(root.getBranchNode(Lists.newArrayList("Outer", "Inner"))).contains(deep.getParent());
+        }
+
+        @Test
+        void addPath_resumesFromDeepestExistingAncestor() {
+            Node inner = root.addPath("Outer$Inner");
+            Node deeper = root.addPath("Outer$Inner$Deeper$Deepest");
+
+            assertThat(deeper.getParent().getParent()).isSameAs(inner);
+            assertThat(inner.getBranches()).hasSize(1);
+        }
+
+        @Test
+        void findNode_isRelativeToTheNode() {
+            Node deeper = root.addPath("Outer$Inner$Deeper");
+            Node outer = root.findNode("Outer").get();
+
+            assertThat(outer.findNode("Inner$Deeper")).contains(deeper);
+            assertThat(root.findNode("Inner$Deeper")).isEmpty();
+        }
+
+        @Test
+        void removeBranch_dropsWholeSubtreeFromIndex() {
+            root.addPath("Outer$Inner$Deeper");
+            root.addPath("Other");
+
+            root.removeBranch(root.findNode("Outer").get());
+
+            assertThat(root.findNode("Outer")).isEmpty();
+            assertThat(root.findNode("Outer$Inner")).isEmpty();
+            assertThat(root.findNode("Outer$Inner$Deeper")).isEmpty();
+            assertThat(root.findNode("Other")).isPresent();
+        }
+
+        @Test
+        void findNode_withManyNestedClasses() {
+            for (int i = 0; i < 40_000; i++) {
+                root.addPath("Outer" + (i % 100) + "$Inner" + i + "$Deeper");
+            }
+
+            for (int i = 0; i < 40_000; i++) {
+                assertThat(root.findNode("Outer" + (i % 100) + "$Inner" + i + "$Deeper")).isPresent();
+            }
+        }
+    }
+
+    @Nested
+    class DeepAndWideTreeTests {
+
+        @Test
+        void addChildren_thousandLevelsDeepOnASmallStack() throws InterruptedException {
+            List<String> path = IntStream.range(0, 1000).mapToObj(level -> "Level" + level).collect(Collectors.toList());
+            AtomicReference<Node> deepest = new AtomicReference<>();
+
+            Thread thread = new Thread(null, () -> deepest.set(root.addChildren(path)), "small-stack", 256 * 1024);
+            thread.start();
+            thread.join();
+
+            assertThat(deepest.get().getDepth()).isEqualTo(1000);
+            assertThat(deepest.get().getParent("Level0")).contains(root.getBranchNode("Level0").get());
+            assertThat(deepest.get().getParent("Missing")).isEmpty();
+            assertThat(root.getBranchNode(path)).contains(deepest.get());
+            assertThat(root.addChildren(path)).isSameAs(deepest.get());
+        }
+
+        @Test
+        void addChildren_hundredThousandWide() {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < 100_000; i++) {
+                root.addChildren("Outer", "Nested" + i);
+            }
+            Node outer = root.getBranchNode("Outer").get();
+            for (int i = 0; i < 100_000; i++) {
+                assertThat(outer.getBranchNode("Nested" + i).get().hasNextSibling()).isEqualTo(i < 99_999);
+            }
+            long duration = System.nanoTime() - startTime;
+
+            assertThat(outer.getBranchNode("Nested99999").get().isLastBranch()).isTrue();
+            assertThat(duration).isLessThan(10_000_000_000L);
+        }
+    }
+
     @Nested
     class RemoveBranchTests {
 
         @Test
         void removeBranch_removesBranchFromListAndMap() {
-            Node root = Node.getRoot();
             root.addChildren("TestClass1");
             root.addChildren("TestClass2");
             root.addChildren("TestClass3");
@@ -150,7 +242,7 @@ class NodeTest {
             Node nodeToRemove = root.getBranchNode("TestClass2").get();
             root.removeBranch(nodeToRemove);
 
-            assertThat(root.branches).hasSize(2);
+            assertThat(root.getBranches()).hasSize(2);
             assertThat(root.containsBranch("TestClass1")).isTrue();
             assertThat(root.containsBranch("TestClass2")).isFalse();
             assertThat(root.containsBranch("TestClass3")).isTrue();
@@ -159,7 +251,6 @@ class NodeTest {
 
         @Test
         void removeBranch_maintainsOrderInList() {
-            Node root = Node.getRoot();
             root.addChildren("First");
             root.addChildren("Second");
             root.addChildren("Third");
@@ -167,14 +258,13 @@ class NodeTest {
             Node nodeToRemove = root.getBranchNode("Second").get();
             root.removeBranch(nodeToRemove);
 
-            assertThat(root.branches).hasSize(2);
-            assertThat(root.branches.get(0).getName()).isEqualTo("First");
-            assertThat(root.branches.get(1).getName()).isEqualTo("Third");
+            assertThat(root.getBranches()).hasSize(2);
+            assertThat(root.getBranches().get(0).getName()).isEqualTo("First");
+            assertThat(root.getBranches().get(1).getName()).isEqualTo("Third");
         }
 
         @Test
         void removeBranch_worksForNestedNodes() {
-            Node root = Node.getRoot();
             root.addChildren("Parent", "Child1");
             root.addChildren("Parent", "Child2");
 
@@ -182,10 +272,24 @@ class NodeTest {
             Node childToRemove = parent.getBranchNode("Child1").get();
             parent.removeBranch(childToRemove);
 
-            assertThat(parent.branches).hasSize(1);
+            assertThat(parent.getBranches()).hasSize(1);
             assertThat(parent.containsBranch("Child1")).isFalse();
             assertThat(parent.containsBranch("Child2")).isTrue();
         }
+
+        @Test
+        void removeBranch_ignoresNodeOfAnotherTreeWithTheSameName() {
+            Node otherModule = Node.createRoot();
+            root.addChildren("SameTest", "Inner");
+            otherModule.addChildren("SameTest", "Inner");
+
+            root.removeBranch(otherModule.getBranchNode("SameTest").get());
+
+            assertThat(root.findNode("SameTest$Inner")).isPresent();
+            assertThat(otherModule.findNode("SameTest$Inner")).isPresent();
+            assertThat(root.getBranchNode("SameTest").get()).isNotEqualTo(otherModule.getBranchNode("SameTest").get());
+            assertThat(root.getNestedClassBuffers()).isNotSameAs(otherModule.getNestedClassBuffers());
+        }
     }
 
     @Nested
@@ -193,18 +297,57 @@ class NodeTest {
 
         @Test
         void clearTree_clearsAllBranchesAndMaps() {
-            Node root = Node.getRoot();
             root.addChildren("Class1");
             root.addChildren("Class2");
             root.addChildren("Class3", "Nested");
 
-            Node.clearTree();
+            root.clearTree();
 
-            assertThat(root.branches).isEmpty();
+            assertThat(root.getBranches()).isEmpty();
             assertThat(root.containsBranch("Class1")).isFalse();
             assertThat(root.containsBranch("Class2")).isFalse();
             assertThat(root.containsBranch("Class3")).isFalse();
             assertThat(root.getBranchNode("Class1")).isEmpty();
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    class ConcurrencyTests {
+
+        @Test
+        void rootsAreIndependent() {
+            Node otherRoot = Node.createRoot();
+            root.addChildren("TestClass", "Nested");
+
+            assertThat(otherRoot.hasBranches()).isFalse();
+            assertThat(otherRoot.getBranchNode("TestClass")).isEmpty();
+        }
+
+        @Test
+        void addChildren_fromManyThreads_keepsTreeConsistent() throws InterruptedException {
+            int threads = 16;
+            int classesPerThread = 500;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < classesPerThread; i++) {
+                        root.addChildren("Shared", "Class" + thread + "_" + i, "Nested");
+                        root.getBranchNode("Shared").ifPresent(shared -> shared.branches().forEach(Node::getName));
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(root.getBranches()).hasSize(1);
+            Node shared = root.getBranchNode("Shared").get();
+            assertThat(shared.getBranches()).hasSize(threads * classesPerThread);
+            assertThat(shared.getBranches()).allSatisfy(branch -> assertThat(branch.getBranches()).hasSize(1));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.NestedExampleTest;
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.apache.maven.surefire.api.report.RunMode;
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReorderWindowTest {
+
+    Utf8RecodingDeferredFileOutputStream stdout = new Utf8RecodingDeferredFileOutputStream("stdout");
+    Utf8RecodingDeferredFileOutputStream stderr = new Utf8RecodingDeferredFileOutputStream("stderr");
+
+    EmulatorLogger logger = new EmulatorLogger(new NullConsoleLogger());
+    List<String> lines = logger.getLogList();
+
+    @Test
+    void printsTreesInTheOrderTheirClassesStarted() {
+        ConsoleTreeReporter reporter = reporter(ReporterOptions.builder().reorderWindowSize(10));
+        start(reporter, "A", "B", "B$Inner", "C");
+
+        complete(reporter, "C");
+        complete(reporter, "B$Inner");
+        complete(reporter, "B");
+        assertThat(lines).isEmpty();
+
+        complete(reporter, "A");
+        assertThat(lines).containsExactly(
+                "---A - 0.001 s",
+                "   '-- [OK] A test - 0.001 s",
+                ".--B - 0.001 s",
+                "|  '-- [OK] B test - 0.001 s",
+                "'-----Inner - 0.001 s",
+                "      '-- [OK] B$Inner test - 0.001 s",
+                "---C - 0.001 s",
+                "   '-- [OK] C test - 0.001 s");
+    }
+
+    @Test
+    void flushesWhenTheWindowIsFull() {
+        ConsoleTreeReporter reporter = reporter(ReporterOptions.builder().reorderWindowSize(1));
+        start(reporter, "A", "B", "C");
+
+        complete(reporter, "B");
+        assertThat(lines).isEmpty();
+        complete(reporter, "C");
+        assertThat(lines).containsExactly(
+                "---B - 0.001 s",
+                "   '-- [OK] B test - 0.001 s",
+                "---C - 0.001 s",
+                "   '-- [OK] C test - 0.001 s");
+
+        lines.clear();
+        complete(reporter, "A");
+        assertThat(lines).containsExactly(
+                "---A - 0.001 s",
+                "   '-- [OK] A test - 0.001 s");
+    }
+
+    @Test
+    void flushesAfterTheTimeLimit() throws InterruptedException {
+        ConsoleTreeReporter reporter = reporter(ReporterOptions.builder().reorderWindowSeconds(1));
+        start(reporter, "A", "B");
+        complete(reporter, "B");
+        assertThat(lines).isEmpty();
+
+        Thread.sleep(1100);
+        start(reporter, "C");
+
+        assertThat(lines).containsExactly(
+                "---B - 0.001 s",
+                "   '-- [OK] B test - 0.001 s");
+    }
+
+    @Test
+    void flushesAfterTheTimeLimitWithoutFurtherEvents() throws InterruptedException {
+        ConsoleTreeReporter reporter = reporter(ReporterOptions.builder().reorderWindowSeconds(1));
+        start(reporter, "A", "B");
+        complete(reporter, "B");
+        assertThat(lines).isEmpty();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (lines.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(lines).containsExactly(
+                "---B - 0.001 s",
+                "   '-- [OK] B test - 0.001 s");
+        reporter.close();
+    }
+
+    @Test
+    void flushesAWindowWithOnlyASizeAfterTheDefaultTimeLimit() throws InterruptedException {
+        ConsoleTreeReporter reporter = reporter(ReporterOptions.builder().reorderWindowSize(10));
+        start(reporter, "A", "A$Never", "B");
+        complete(reporter, "B");
+        assertThat(lines).isEmpty();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (lines.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(lines).containsExactly(
+                "---B - 0.001 s",
+                "   '-- [OK] B test - 0.001 s");
+        reporter.close();
+    }
+
+    @Test
+    void printsHeldTreesOnClose() {
+        ConsoleTreeReporter reporter = reporter(ReporterOptions.builder().reorderWindowSize(10));
+        start(reporter, "A", "B");
+        complete(reporter, "B");
+
+        reporter.close();
+
+        assertThat(lines).containsExactly(
+                "---A - not completed",
+                "---B - 0.001 s",
+                "   '-- [OK] B test - 0.001 s");
+    }
+
+    @Test
+    void keepsTheOutputOfSequentialRuns() {
+        List<String> expected = new SurefireEmulator(ReporterOptions.builder().build(), NestedExampleTest.class).run();
+
+        List<String> reordered = new SurefireEmulator(
+                ReporterOptions.builder().reorderWindowSize(4).build(), NestedExampleTest.class).run();
+
+        assertThat(reordered).isEqualTo(expected);
+    }
+
+    private ConsoleTreeReporter reporter(ReporterOptions.Builder options) {
+        return new ConsoleTreeReporter(logger, options.build());
+    }
+
+    private static void start(ConsoleTreeReporter reporter, String... sourceNames) {
+        for (String sourceName : sourceNames) {
+            reporter.testSetStarting(classEntry(sourceName));
+        }
+    }
+
+    private void complete(ConsoleTreeReporter reporter, String sourceName) {
+        TestSetStats stats = new TestSetStats(false, true);
+        stats.testSucceeded(wrap(new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, sourceName, sourceName.replace('$', ' '),
+                "test", sourceName + " test")));
+        reporter.testSetCompleted(wrap(classEntry(sourceName)), stats, Collections.emptyList());
+        reporter.reset();
+    }
+
+    private static SimpleReportEntry classEntry(String sourceName) {
+        return new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, sourceName, sourceName.replace('$', ' '), null, null);
+    }
+
+    private WrappedReportEntry wrap(SimpleReportEntry entry) {
+        return new WrappedReportEntry(entry, ReportEntryType.SUCCESS, 1, stdout, stderr);
+    }
+}
@@ -0,0 +1,85 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.surefire.api.report.RunMode;
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SampledReportEntriesTest {
+
+    Utf8RecodingDeferredFileOutputStream stdout = new Utf8RecodingDeferredFileOutputStream("stdout");
+    Utf8RecodingDeferredFileOutputStream stderr = new Utf8RecodingDeferredFileOutputStream("stderr");
+
+    @Test
+    void keepsFailuresAndASampleOfPassedInvocations() {
+        SampledReportEntries entries = new SampledReportEntries(5, new ArrayList<>());
+        entries.add(entry("plain()", ReportEntryType.SUCCESS));
+        for (int i = 1; i <= 1000; i++) {
+            entries.add(entry("factory()[" + i + "]", i % 100 == 0 ? ReportEntryType.FAILURE : ReportEntryType.SUCCESS));
+        }
+        entries.add(entry("last()", ReportEntryType.SKIPPED));
+
+        assertThat(entries).hasSize(1 + 5 + 1 + 10 + 1);
+        assertThat(entries.get(0).getName()).isEqualTo("plain()");
+        List<Integer> sample = invocations(entries.subList(1, 6));
+        assertThat(sample).isSorted().allMatch(i -> i % 100 != 0);
+        assertThat(entries.get(6).getNameText()).isEqualTo("... 985 more passed invocations of factory() not shown");
+        assertThat(entries.get(6).getElapsed()).isEqualTo(985);
+        assertThat(invocations(entries.subList(7, 17))).containsExactly(100, 200, 300, 400, 500, 600, 700, 800, 900, 1000);
+        assertThat(entries.get(17).getName()).isEqualTo("last()");
+        assertThat(entries.getUnlistedTests()).isEqualTo(984);
+    }
+
+    @Test
+    void samplesTheWholeRangeOfInvocations() {
+        SampledReportEntries entries = new SampledReportEntries(100, new ArrayList<>());
+        for (int i = 1; i <= 10_000; i++) {
+            entries.add(entry("factory()[" + i + "]", ReportEntryType.SUCCESS));
+        }
+
+        List<Integer> sample = invocations(entries.subList(0, 100));
+
+        assertThat(sample).hasSize(100).doesNotHaveDuplicates();
+        // the mean of a uniform sample of 100 out of 10000 has a standard deviation below 300
+        assertThat(sample.stream().mapToInt(Integer::intValue).average().getAsDouble()).isBetween(3500.0, 6500.0);
+        assertThat(sample.stream().filter(i -> i > 5000)).hasSizeBetween(30, 70);
+    }
+
+    @Test
+    void foldsOmittedElapsedTimesBeyondTheRangeOfAnInt() {
+        SampledReportEntries entries = new SampledReportEntries(1, new ArrayList<>());
+        for (int i = 1; i <= 10; i++) {
+            entries.add(new WrappedReportEntry(new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, "Factory", "Factory",
+                    "factory()[" + i + "]", "[" + i + "]"), ReportEntryType.SUCCESS, 1_000_000_000, stdout, stderr));
+        }
+
+        List<Object> lines = InvocationGroups.fold(entries);
+
+        assertThat(lines).hasSize(1);
+        InvocationGroups.Group group = (InvocationGroups.Group) lines.get(0);
+        assertThat(group.getInvocations()).isEqualTo(10);
+        assertThat(group.getPassed()).isEqualTo(10);
+        assertThat(group.getMinElapsed()).isEqualTo(1_000_000_000);
+        assertThat(group.getAvgElapsed()).isEqualTo(1_000_000_000);
+        assertThat(group.getMaxElapsed()).isEqualTo(1_000_000_000);
+        assertThat(group.getP95Elapsed()).isEqualTo(1_000_000_000);
+        // the omission entry itself can only tell an int
+        assertThat(entries.get(1).getElapsed()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    private static List<Integer> invocations(List<WrappedReportEntry> entries) {
+        return entries.stream()
+                .map(entry -> Integer.valueOf(entry.getName().replaceAll(".*\\[(\\d+)]$", "$1")))
+                .collect(Collectors.toList());
+    }
+
+    private WrappedReportEntry entry(String name, ReportEntryType type) {
+        return new WrappedReportEntry(new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, "Factory", "Factory", name, name),
+                type, 1, stdout, stderr);
+    }
+}
@@ -1,19 +1,16 @@
 package org.apache.maven.plugin.surefire.report;
 
-import org.apache.maven.plugin.surefire.log.PluginConsoleLogger;
 import org.apache.maven.surefire.api.report.RunMode;
 import org.apache.maven.surefire.api.report.SimpleReportEntry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.DisplayNameGenerator;
 import org.junit.platform.commons.util.StringUtils;
-import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.DisplayNameGenerator.getDisplayNameGenerator;
@@ -21,11 +18,12 @@ import static org.junit.platform.commons.util.AnnotationUtils.findAnnotation;
 
 public class SurefireEmulator {
 
-//    private final EmulatorLogger emulatorLogger = new EmulatorLogger();
+    private final EmulatorLogger emulatorLogger = new EmulatorLogger();
     private final DisplayNameGenerator displayNameGenerator = getDisplayNameGenerator(DisplayNameGenerator.Standard.class);
     private final Utf8RecodingDeferredFileOutputStream stdout = new Utf8RecodingDeferredFileOutputStream("stdout");
     private final Utf8RecodingDeferredFileOutputStream stderr = new Utf8RecodingDeferredFileOutputStream("stderr");
     private final Class<?> clazz;
+    private final SyntheticSuite syntheticSuite;
     private final ConsoleTreeReporter consoleTreeReporter;
 
     public SurefireEmulator(Class<?> clazz) {
@@ -34,15 +32,27 @@ public class SurefireEmulator {
 
     public SurefireEmulator(ReporterOptions reporterOptions, Class<?> clazz) {
         this.clazz = clazz;
-        this.consoleTreeReporter = new ConsoleTreeReporter(new PluginConsoleLogger(LoggerFactory.getLogger(SurefireEmulator.class)), reporterOptions);
+        this.syntheticSuite = null;
+        this.consoleTreeReporter = new ConsoleTreeReporter(emulatorLogger, reporterOptions);
+    }
+
+    /**
+     * Emulates a generated suite instead of a real test class.
+     */
+    public SurefireEmulator(ReporterOptions reporterOptions, SyntheticSuite syntheticSuite) {
+        this.clazz = null;
+        this.syntheticSuite = syntheticSuite;
+        this.consoleTreeReporter = new ConsoleTreeReporter(emulatorLogger, reporterOptions);
     }
 
     public List<String> run() {
+        if (syntheticSuite != null) {
+            syntheticSuite.run(consoleTreeReporter);
+            return emulatorLogger.getLogList();
+        }
         testsStarting();
         testsCompleted(testsSucceeded());
-        // TODO: Surefire has changed their logging, fix this.
-//        return emulatorLogger.getLogList();
-        return Stream.of("log").collect(toList());
+        return emulatorLogger.getLogList();
     }
 
     private void testsCompleted(TestSetStats testSetStats) {
@@ -51,14 +61,22 @@ public class SurefireEmulator {
                         .map(this::simpleReportEntryGenerator)
                         .map(this::wrappedReportEntryGenerator)
                         .collect(toList());
+        //Surefire completes nested classes before the class enclosing them
+        Collections.reverse(completedWrappedEntries);
 
         //List's head needs to be with complete testSetStats
         completedWrappedEntries.stream().findFirst()
-                .ifPresent(i -> consoleTreeReporter.testSetCompleted(i, testSetStats, null));
+                .ifPresent(i -> testSetCompleted(i, testSetStats));
 
         //List's tail goes with empty testSetStats
         completedWrappedEntries.stream().skip(1)
-                .forEachOrdered(i -> consoleTreeReporter.testSetCompleted(i, new TestSetStats(false, false), null));
+                .forEachOrdered(i -> testSetCompleted(i, new TestSetStats(false, false)));
+    }
+
+    //Surefire resets the reporter after every completed test set
+    private void testSetCompleted(WrappedReportEntry entry, TestSetStats testSetStats) {
+        consoleTreeReporter.testSetCompleted(entry, testSetStats, null);
+        consoleTreeReporter.reset();
     }
 
     private TestSetStats testsSucceeded() {
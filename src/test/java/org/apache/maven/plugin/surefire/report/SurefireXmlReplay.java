@@ -0,0 +1,455 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.PrintStreamLogger;
+import org.apache.maven.surefire.api.report.RunMode;
+import org.apache.maven.surefire.api.report.SafeThrowable;
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+import org.apache.maven.surefire.api.report.StackTraceWriter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+/**
+ * Replays surefire's XML reports ({@code TEST-*.xml}) through a {@link ConsoleTreeReporter}, to render the
+ * tree of a past build without running its tests, or to benchmark the reporter against real suite shapes.
+ * <p>
+ * Reports are parsed with StAX on {@code threads} threads, a bounded window ahead of the one being replayed,
+ * and replayed one at a time sorted by class name, so the output never depends on which file is parsed first.
+ * A report is replayed the way surefire delivers a top-level class: the class and its nested classes start,
+ * then complete from the innermost one, whose stats hold every test of the report.
+ * <p>
+ * Nested classes are recovered from {@code Outer$Inner} test case class names. Reports written with phrased
+ * class names only hold display names, which lose the nesting: each one becomes a class right under the
+ * top-level class.
+ */
+public final class SurefireXmlReplay {
+
+    private static final long TEST_RUN_ID = 1L;
+    private static final String PREFIX = "TEST-";
+    private static final String SUFFIX = ".xml";
+    private static final ThreadLocal<XMLInputFactory> FACTORY = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    });
+
+    private final List<Path> reports;
+    private final int threads;
+
+    public SurefireXmlReplay(Collection<Path> reports, int threads) {
+        this.reports = reports.stream()
+                .sorted(Comparator.comparing(SurefireXmlReplay::className).thenComparing(Path::toString))
+                .collect(toList());
+        this.threads = threads;
+    }
+
+    /**
+     * Every {@code TEST-*.xml} file under {@code directory}, at any depth, so the reports of all modules of a
+     * build can be replayed together.
+     */
+    public static List<Path> findReports(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX) && Files.isRegularFile(file);
+            }).collect(toList());
+        }
+    }
+
+    /**
+     * Sends the events of every report to {@code reporter}, resetting it after every completed class as
+     * surefire does.
+     */
+    public void replay(ConsoleTreeReporter reporter) {
+        read(report -> report.replay(reporter));
+    }
+
+    /**
+     * Parses every report into memory, so it can be replayed many times.
+     */
+    public List<Report> readAll() {
+        List<Report> all = new ArrayList<>(reports.size());
+        read(all::add);
+        return all;
+    }
+
+    private void read(Consumer<Report> consumer) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "surefire-xml-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Deque<Future<Report>> window = new ArrayDeque<>();
+            Iterator<Path> files = reports.iterator();
+            while (files.hasNext() || !window.isEmpty()) {
+                while (files.hasNext() && window.size() < threads * 4) {
+                    Path file = files.next();
+                    window.add(executor.submit(() -> parse(file)));
+                }
+                consumer.accept(get(window.remove()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Report get(Future<Report> report) {
+        try {
+            return report.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw new UncheckedIOException((IOException) e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String className(Path report) {
+        String name = report.getFileName().toString();
+        return name.substring(PREFIX.length(), name.length() - SUFFIX.length());
+    }
+
+    static Report parse(Path file) throws IOException {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file))) {
+            XMLStreamReader xml = FACTORY.get().createXMLStreamReader(input);
+            try {
+                return parse(xml, className(file));
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Cannot parse " + file, e);
+        }
+    }
+
+    private static Report parse(XMLStreamReader xml, String defaultName) throws XMLStreamException {
+        String suiteName = null;
+        Integer suiteElapsed = null;
+        List<TestCase> testCases = new ArrayList<>();
+        TestCase testCase = null;
+        StringBuilder text = null;
+        int ignoredDepth = 0;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == START_ELEMENT) {
+                String element = xml.getLocalName();
+                if (ignoredDepth > 0 || element.startsWith("flaky") || element.startsWith("rerun")) {
+                    // the attempts before a rerun passed or failed for good, not the result of the test
+                    ignoredDepth++;
+                } else if ("testsuite".equals(element) && suiteName == null) {
+                    suiteName = xml.getAttributeValue(null, "name");
+                    suiteElapsed = elapsed(xml.getAttributeValue(null, "time"));
+                } else if ("testcase".equals(element)) {
+                    testCase = new TestCase(xml.getAttributeValue(null, "classname"), xml.getAttributeValue(null, "name"),
+                            elapsed(xml.getAttributeValue(null, "time")));
+                } else if (testCase != null) {
+                    if (testCase.setResult(element, xml.getAttributeValue(null, "message"), xml.getAttributeValue(null, "type"))
+                            || "system-out".equals(element) || "system-err".equals(element)) {
+                        text = new StringBuilder();
+                    }
+                }
+            } else if ((event == CHARACTERS || event == CDATA) && text != null && ignoredDepth == 0) {
+                text.append(xml.getText());
+            } else if (event == END_ELEMENT) {
+                String element = xml.getLocalName();
+                if (ignoredDepth > 0) {
+                    ignoredDepth--;
+                } else if ("testcase".equals(element)) {
+                    testCases.add(testCase);
+                    testCase = null;
+                } else if (testCase != null && text != null) {
+                    testCase.setText(element, text.toString());
+                    text = null;
+                }
+            }
+        }
+        return new Report(suiteName == null ? defaultName : suiteName, suiteElapsed, testCases);
+    }
+
+    /**
+     * Surefire writes times in seconds, with a grouping separator from a thousand seconds on.
+     */
+    private static Integer elapsed(String seconds) {
+        if (seconds == null || seconds.isEmpty()) return null;
+        try {
+            return (int) Math.round(Double.parseDouble(seconds.replace(",", "")) * 1000);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Prints the tree of every report under the given directories:
+     * {@code [--theme=UNICODE] [--threads=4] <directory>...}
+     */
+    public static void main(String[] args) throws IOException {
+        ReporterOptions.Builder options = ReporterOptions.builder();
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> reports = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--theme=")) {
+                options.theme(Theme.valueOf(arg.substring("--theme=".length())));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else {
+                reports.addAll(findReports(Paths.get(arg)));
+            }
+        }
+        new SurefireXmlReplay(reports, threads).replay(new ConsoleTreeReporter(new PrintStreamLogger(System.out), options.build()));
+    }
+
+    /**
+     * The test cases of one report, in the order surefire wrote them.
+     */
+    public static final class Report {
+        private final String name;
+        private final Integer elapsed;
+        private final List<TestCase> testCases;
+
+        private Report(String name, Integer elapsed, List<TestCase> testCases) {
+            this.name = name;
+            this.elapsed = elapsed;
+            this.testCases = testCases;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getTestCount() {
+            return testCases.size();
+        }
+
+        /**
+         * Sends the events of this report to {@code reporter}. The captured outputs are recreated for every
+         * replay and freed once the class completed.
+         */
+        public void replay(ConsoleTreeReporter reporter) {
+            Map<String, ClassEntry> classes = new TreeMap<>();
+            classes.put(name, new ClassEntry(name, elapsed));
+            List<Utf8RecodingDeferredFileOutputStream> outputs = new ArrayList<>();
+            Utf8RecodingDeferredFileOutputStream noOutput = output("stdout", null, outputs);
+            TestSetStats stats = new TestSetStats(false, true);
+            for (TestCase testCase : testCases) {
+                String sourceName = sourceName(testCase);
+                for (String className = sourceName; ; className = className.substring(0, className.lastIndexOf('$'))) {
+                    ClassEntry classEntry = classes.computeIfAbsent(className, key -> new ClassEntry(key, null));
+                    if (classEntry.sumElapsed && testCase.elapsed != null) classEntry.elapsed += testCase.elapsed;
+                    if (className.length() <= name.length()) break;
+                }
+                testCase.addTo(stats, sourceName, classes.get(sourceName).sourceText,
+                        output("stdout", testCase.stdout, outputs), output("stderr", testCase.stderr, outputs));
+            }
+
+            List<ClassEntry> started = new ArrayList<>(classes.values());
+            for (ClassEntry classEntry : started) {
+                reporter.testSetStarting(classEntry.entry);
+            }
+            for (ListIterator<ClassEntry> completed = started.listIterator(started.size()); completed.hasPrevious(); ) {
+                ClassEntry classEntry = completed.previous();
+                reporter.testSetCompleted(new WrappedReportEntry(classEntry.entry, ReportEntryType.SUCCESS, classEntry.elapsed,
+                        noOutput, noOutput), stats, null);
+                reporter.reset();
+                stats = new TestSetStats(false, true);
+            }
+            outputs.forEach(Utf8RecodingDeferredFileOutputStream::free);
+        }
+
+        /**
+         * The class of {@code testCase}: one of this report's class or its nested classes, or a made up class
+         * nested in this report's class for a phrased class name.
+         */
+        private String sourceName(TestCase testCase) {
+            String className = testCase.className;
+            if (className == null || className.equals(name) || className.startsWith(name + "$")) {
+                return className == null ? name : className;
+            }
+            return name + "$" + className;
+        }
+
+        private static Utf8RecodingDeferredFileOutputStream output(String channel, String text,
+                                                                   List<Utf8RecodingDeferredFileOutputStream> outputs) {
+            if (text == null && !outputs.isEmpty()) return outputs.get(0);
+            Utf8RecodingDeferredFileOutputStream output = new Utf8RecodingDeferredFileOutputStream(channel);
+            if (text != null) {
+                try {
+                    output.write(text, false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            outputs.add(output);
+            return output;
+        }
+    }
+
+    private static final class ClassEntry {
+        private final SimpleReportEntry entry;
+        private final String sourceText;
+        private final boolean sumElapsed;
+        private int elapsed;
+
+        /**
+         * A class without a time of its own (a nested class) takes the sum of its tests.
+         */
+        private ClassEntry(String sourceName, Integer elapsed) {
+            String simpleName = sourceName.substring(sourceName.lastIndexOf('.', nestingStart(sourceName)) + 1);
+            this.sourceText = simpleName.replace('$', ' ');
+            this.entry = new SimpleReportEntry(RunMode.NORMAL_RUN, TEST_RUN_ID, sourceName, sourceText, null, null);
+            this.sumElapsed = elapsed == null;
+            this.elapsed = elapsed == null ? 0 : elapsed;
+        }
+
+        /**
+         * Dots after the first {@code $} belong to a phrased class name, not to the package.
+         */
+        private static int nestingStart(String sourceName) {
+            int nesting = sourceName.indexOf('$');
+            return nesting < 0 ? sourceName.length() : nesting;
+        }
+    }
+
+    private static final class TestCase {
+        private final String className;
+        private final String name;
+        private final Integer elapsed;
+        private ReportEntryType type = ReportEntryType.SUCCESS;
+        private String message;
+        private String exceptionType;
+        private String stackTrace;
+        private String stdout;
+        private String stderr;
+
+        private TestCase(String className, String name, Integer elapsed) {
+            this.className = className;
+            this.name = name;
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * Records the result element {@code element}, and tells whether its text is the stack trace.
+         */
+        private boolean setResult(String element, String message, String exceptionType) {
+            switch (element) {
+                case "failure":
+                    type = ReportEntryType.FAILURE;
+                    break;
+                case "error":
+                    type = ReportEntryType.ERROR;
+                    break;
+                case "skipped":
+                    type = ReportEntryType.SKIPPED;
+                    this.message = message;
+                    return false;
+                default:
+                    return false;
+            }
+            this.message = message;
+            this.exceptionType = exceptionType;
+            return true;
+        }
+
+        private void setText(String element, String text) {
+            switch (element) {
+                case "failure":
+                case "error":
+                    stackTrace = text;
+                    break;
+                case "system-out":
+                    stdout = text;
+                    break;
+                case "system-err":
+                    stderr = text;
+                    break;
+                default:
+            }
+        }
+
+        private void addTo(TestSetStats stats, String sourceName, String sourceText,
+                           Utf8RecodingDeferredFileOutputStream stdout, Utf8RecodingDeferredFileOutputStream stderr) {
+            switch (type) {
+                case FAILURE:
+                    stats.testFailure(new WrappedReportEntry(SimpleReportEntry.withException(RunMode.NORMAL_RUN, TEST_RUN_ID,
+                            sourceName, sourceText, name, name, new RecordedStackTrace(this)), type, elapsed, stdout, stderr));
+                    break;
+                case ERROR:
+                    stats.testError(new WrappedReportEntry(SimpleReportEntry.withException(RunMode.NORMAL_RUN, TEST_RUN_ID,
+                            sourceName, sourceText, name, name, new RecordedStackTrace(this)), type, elapsed, stdout, stderr));
+                    break;
+                case SKIPPED:
+                    stats.testSkipped(new WrappedReportEntry(SimpleReportEntry.ignored(RunMode.NORMAL_RUN, TEST_RUN_ID,
+                            sourceName, sourceText, name, name, message), type, elapsed, stdout, stderr));
+                    break;
+                default:
+                    stats.testSucceeded(new WrappedReportEntry(new SimpleReportEntry(RunMode.NORMAL_RUN, TEST_RUN_ID,
+                            sourceName, sourceText, name, name), type, elapsed, stdout, stderr));
+            }
+        }
+    }
+
+    /**
+     * The stack trace as surefire wrote it, which is already trimmed or not.
+     */
+    private static final class RecordedStackTrace implements StackTraceWriter {
+        private final TestCase testCase;
+
+        private RecordedStackTrace(TestCase testCase) {
+            this.testCase = testCase;
+        }
+
+        @Override
+        public String writeTraceToString() {
+            return testCase.stackTrace == null || testCase.stackTrace.trim().isEmpty() ? smartTrimmedStackTrace() : testCase.stackTrace;
+        }
+
+        @Override
+        public String writeTrimmedTraceToString() {
+            return writeTraceToString();
+        }
+
+        @Override
+        public String smartTrimmedStackTrace() {
+            if (testCase.exceptionType == null) return testCase.message;
+            return testCase.message == null ? testCase.exceptionType : testCase.exceptionType + ": " + testCase.message;
+        }
+
+        @Override
+        public SafeThrowable getThrowable() {
+            return new SafeThrowable(testCase.message);
+        }
+    }
+}
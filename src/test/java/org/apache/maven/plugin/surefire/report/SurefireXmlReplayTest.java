@@ -0,0 +1,126 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SurefireXmlReplayTest {
+
+    @TempDir
+    Path reports;
+
+    @Test
+    void printsTheTreeOfReports() throws IOException {
+        write("TEST-com.example.OuterTest.xml",
+                "<testsuite name=\"com.example.OuterTest\" time=\"1,001.5\" tests=\"4\" failures=\"1\" skipped=\"1\">",
+                "  <properties><property name=\"java.version\" value=\"17\"/></properties>",
+                "  <testcase name=\"passes\" classname=\"com.example.OuterTest\" time=\"0.1\"/>",
+                "  <testcase name=\"fails\" classname=\"com.example.OuterTest$Inner\" time=\"0.02\">",
+                "    <failure message=\"expected: &lt;1&gt; but was: &lt;2&gt;\" type=\"org.opentest4j.AssertionFailedError\">"
+                        + "<![CDATA[org.opentest4j.AssertionFailedError: expected: <1> but was: <2>",
+                "\tat com.example.OuterTest$Inner.fails(OuterTest.java:42)]]></failure>",
+                "    <system-out><![CDATA[printed by fails]]></system-out>",
+                "  </testcase>",
+                "  <testcase name=\"skipped\" classname=\"com.example.OuterTest$Inner$Deeper\" time=\"0\">",
+                "    <skipped message=\"not today\"/>",
+                "  </testcase>",
+                "  <testcase name=\"flaky\" classname=\"com.example.OuterTest$Inner\" time=\"0.003\">",
+                "    <flakyFailure message=\"first try\" type=\"java.lang.AssertionError\">"
+                        + "<stackTrace>boom</stackTrace><system-out>noise</system-out></flakyFailure>",
+                "  </testcase>",
+                "</testsuite>");
+        write("TEST-com.example.AnotherTest.xml",
+                "<testsuite name=\"com.example.AnotherTest\" time=\"0.2\">",
+                "  <testcase name=\"works\" classname=\"com.example.AnotherTest\" time=\"0.2\"/>",
+                "</testsuite>");
+        EmulatorLogger logger = new EmulatorLogger();
+        ReporterOptions options = ReporterOptions.builder().printStacktraceOnFailure(true).printStdoutOnFailure(true).build();
+
+        new SurefireXmlReplay(SurefireXmlReplay.findReports(reports), 2).replay(new ConsoleTreeReporter(logger, options));
+
+        assertThat(logger.getLogList()).containsExactly(
+                "---AnotherTest - 0.200 s",
+                "   '-- [OK] works - 0.200 s",
+                ".--OuterTest - 1002 s",
+                "|  '-- [OK] passes - 0.100 s",
+                "'--.--Inner - 0.023 s",
+                "   |  +-- [XX] fails - 0.020 s",
+                "[*] fails",
+                "",
+                "Stack trace",
+                "org.opentest4j.AssertionFailedError: expected: <1> but was: <2>" + System.lineSeparator()
+                        + "\tat com.example.OuterTest$Inner.fails(OuterTest.java:42)",
+                "",
+                "Standard out",
+                "printed by fails",
+                "   |  '-- [OK] flaky - 0.003 s",
+                "   '-----Deeper - 0 s",
+                "         '-- [??] skipped (not today) - 0 s");
+    }
+
+    @Test
+    void keepsDisplayNamesOfPhrasedReports() throws IOException {
+        write("TEST-com.example.NestedTest.xml",
+                "<testsuite name=\"com.example.NestedTest\" time=\"0.5\">",
+                "  <testcase name=\"test\" classname=\"Nested Sample\" time=\"0.1\"/>",
+                "  <testcase name=\"test\" classname=\"Inner Test\" time=\"0.2\"/>",
+                "  <testcase name=\"test2\" classname=\"Nested Sample\" time=\"0.2\"/>",
+                "</testsuite>");
+        EmulatorLogger logger = new EmulatorLogger();
+
+        new SurefireXmlReplay(SurefireXmlReplay.findReports(reports), 1)
+                .replay(new ConsoleTreeReporter(logger, ReporterOptions.builder().build()));
+
+        assertThat(logger.getLogList()).containsExactly(
+                ".--NestedTest - 0.500 s",
+                "+-----Inner Test - 0.200 s",
+                "|     '-- [OK] test - 0.200 s",
+                "'-----Nested Sample - 0.300 s",
+                "      +-- [OK] test - 0.100 s",
+                "      '-- [OK] test2 - 0.200 s");
+    }
+
+    @Test
+    void replaysInTheSameOrderWhateverTheThreads() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            StringBuilder testCases = new StringBuilder();
+            // the first reports are the largest, so later ones are parsed first on many threads
+            for (int test = 0; test < 201 - i; test++) {
+                testCases.append("<testcase name=\"test").append(test).append("\" classname=\"bulk.Test").append(i)
+                        .append(test % 2 == 0 ? "" : "$Nested").append("\" time=\"0.001\"/>\n");
+            }
+            write(String.format("TEST-bulk.Test%03d.xml", i),
+                    "<testsuite name=\"bulk.Test" + i + "\" time=\"0.2\">", testCases.toString(), "</testsuite>");
+        }
+        List<Path> files = SurefireXmlReplay.findReports(reports);
+
+        List<String> sequential = replay(new SurefireXmlReplay(files, 1));
+        List<String> parallel = replay(new SurefireXmlReplay(files, 8));
+
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(sequential).hasSize(200 * 2 + 20_300);
+        assertThat(sequential.get(0)).startsWith(".--Test0 - ");
+        assertThat(new SurefireXmlReplay(files, 4).readAll())
+                .extracting(SurefireXmlReplay.Report::getName)
+                .startsWith("bulk.Test0", "bulk.Test1", "bulk.Test2");
+    }
+
+    private static List<String> replay(SurefireXmlReplay replay) {
+        EmulatorLogger logger = new EmulatorLogger(new NullConsoleLogger());
+        replay.replay(new ConsoleTreeReporter(logger, ReporterOptions.builder().build()));
+        return logger.getLogList();
+    }
+
+    private void write(String file, String... lines) throws IOException {
+        Files.write(reports.resolve(file), ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + String.join("\n", lines))
+                .getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,266 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.surefire.api.report.LegacyPojoStackTraceWriter;
+import org.apache.maven.surefire.api.report.RunMode;
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates the events of a test suite without any compiled test class, for {@link SurefireEmulator},
+ * benchmarks and soak tests.
+ * <p>
+ * Every top-level class has {@code nestedClasses} nested classes on each of {@code depth} levels, and every
+ * class runs {@code testsPerClass} tests, a share of them parameterized with {@code fanOut} invocations.
+ * Results, elapsed times (log-normal around a median) and which tests print to stdout are drawn from a
+ * seeded random, so a suite always produces the same events. Events are generated one top-level class
+ * at a time, in the order surefire delivers them: a class starts, runs its tests, then its nested classes,
+ * and completes with the stats of everything that ran since the previous completion.
+ */
+public class SyntheticSuite implements AutoCloseable {
+
+    private static final long TEST_RUN_ID = 123L;
+    private static final int MAX_ELAPSED_MILLIS = 3_600_000;
+
+    private final Builder builder;
+    private final Random random;
+    private final Map<ReportEntryType, Long> counts = new EnumMap<>(ReportEntryType.class);
+    private final Utf8RecodingDeferredFileOutputStream noOutput = new Utf8RecodingDeferredFileOutputStream("stdout");
+    private final Utf8RecodingDeferredFileOutputStream stderr = new Utf8RecodingDeferredFileOutputStream("stderr");
+    private Utf8RecodingDeferredFileOutputStream stdout;
+    private TestSetStats pendingStats;
+
+    private SyntheticSuite(Builder builder) {
+        this.builder = builder;
+        this.random = new Random(builder.seed);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Sends the events of the whole suite to {@code reporter}, resetting it after every completed class as
+     * surefire does.
+     */
+    public void run(ConsoleTreeReporter reporter) {
+        for (int i = 0; i < builder.classes; i++) {
+            pendingStats = new TestSetStats(false, true);
+            String sourceName = builder.packageName + ".Test" + i;
+            runClass(reporter, sourceName, "Test" + i, 0);
+        }
+    }
+
+    private int runClass(ConsoleTreeReporter reporter, String sourceName, String sourceText, int level) {
+        SimpleReportEntry classEntry = new SimpleReportEntry(RunMode.NORMAL_RUN, TEST_RUN_ID, sourceName, sourceText, null, null);
+        reporter.testSetStarting(classEntry);
+        int elapsed = 0;
+        for (int test = 0; test < builder.testsPerClass; test++) {
+            if (random.nextDouble() < builder.parameterizedRatio) {
+                for (int invocation = 1; invocation <= builder.fanOut; invocation++) {
+                    elapsed += runTest(sourceName, sourceText, "test" + test + "(int)[" + invocation + "]", "[" + invocation + "] " + invocation);
+                }
+            } else {
+                elapsed += runTest(sourceName, sourceText, "test" + test + "()", "test" + test + "()");
+            }
+        }
+        if (level < builder.depth) {
+            for (int nested = 0; nested < builder.nestedClasses; nested++) {
+                elapsed += runClass(reporter, sourceName + "$Nested" + nested, sourceText + " Nested" + nested, level + 1);
+            }
+        }
+        reporter.testSetCompleted(new WrappedReportEntry(classEntry, ReportEntryType.SUCCESS, elapsed, noOutput, stderr), pendingStats, null);
+        reporter.reset();
+        pendingStats = new TestSetStats(false, true);
+        return elapsed;
+    }
+
+    private int runTest(String sourceName, String sourceText, String name, String nameText) {
+        ReportEntryType type = nextType();
+        int elapsed = nextElapsed();
+        Utf8RecodingDeferredFileOutputStream output = random.nextDouble() < builder.stdoutRatio ? stdout() : noOutput;
+        switch (type) {
+            case FAILURE:
+                pendingStats.testFailure(new WrappedReportEntry(SimpleReportEntry.withException(RunMode.NORMAL_RUN, TEST_RUN_ID,
+                        sourceName, sourceText, name, nameText, stackTrace(sourceName, name, new AssertionError("expected: <1> but was: <2>"))),
+                        type, elapsed, output, stderr));
+                break;
+            case ERROR:
+                pendingStats.testError(new WrappedReportEntry(SimpleReportEntry.withException(RunMode.NORMAL_RUN, TEST_RUN_ID,
+                        sourceName, sourceText, name, nameText, stackTrace(sourceName, name, new IllegalStateException("unexpected state"))),
+                        type, elapsed, output, stderr));
+                break;
+            case SKIPPED:
+                pendingStats.testSkipped(new WrappedReportEntry(SimpleReportEntry.ignored(RunMode.NORMAL_RUN, TEST_RUN_ID,
+                        sourceName, sourceText, name, nameText, "disabled"), type, null, output, stderr));
+                break;
+            default:
+                pendingStats.testSucceeded(new WrappedReportEntry(new SimpleReportEntry(RunMode.NORMAL_RUN, TEST_RUN_ID,
+                        sourceName, sourceText, name, nameText), type, elapsed, output, stderr));
+        }
+        counts.merge(type, 1L, Long::sum);
+        return elapsed;
+    }
+
+    private ReportEntryType nextType() {
+        double draw = random.nextDouble();
+        if ((draw -= builder.failureRatio) < 0) return ReportEntryType.FAILURE;
+        if ((draw -= builder.errorRatio) < 0) return ReportEntryType.ERROR;
+        if (draw - builder.skippedRatio < 0) return ReportEntryType.SKIPPED;
+        return ReportEntryType.SUCCESS;
+    }
+
+    private int nextElapsed() {
+        double elapsed = builder.elapsedMedianMillis * Math.exp(builder.elapsedSigma * random.nextGaussian());
+        return (int) Math.min(MAX_ELAPSED_MILLIS, Math.round(elapsed));
+    }
+
+    private static LegacyPojoStackTraceWriter stackTrace(String sourceName, String name, Throwable throwable) {
+        throwable.setStackTrace(new StackTraceElement[] {new StackTraceElement(sourceName, name, sourceName + ".java", 42)});
+        return new LegacyPojoStackTraceWriter(sourceName, name, throwable);
+    }
+
+    /**
+     * The captured stdout shared by every test that prints, written once: {@code stdoutBytes} of 80 character lines.
+     */
+    private Utf8RecodingDeferredFileOutputStream stdout() {
+        if (stdout == null) {
+            stdout = new Utf8RecodingDeferredFileOutputStream("stdout");
+            StringBuilder line = new StringBuilder(80);
+            try {
+                for (long written = 0, lineNumber = 0; written < builder.stdoutBytes; lineNumber++) {
+                    line.setLength(0);
+                    line.append("output line ").append(lineNumber).append(' ');
+                    while (line.length() < 79) line.append('.');
+                    stdout.write(line.toString(), true);
+                    written += line.length() + 1;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return stdout;
+    }
+
+    /**
+     * Number of tests (each invocation of a parameterized test counts) that ended with {@code type} so far.
+     */
+    public long getCount(ReportEntryType type) {
+        return counts.getOrDefault(type, 0L);
+    }
+
+    public long getTestCount() {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public void close() {
+        noOutput.free();
+        stderr.free();
+        if (stdout != null) stdout.free();
+    }
+
+    public static final class Builder {
+        private String packageName = "synthetic";
+        private int classes = 10;
+        private int nestedClasses;
+        private int depth;
+        private int testsPerClass = 10;
+        private double parameterizedRatio;
+        private int fanOut = 10;
+        private double failureRatio;
+        private double errorRatio;
+        private double skippedRatio;
+        private double elapsedMedianMillis = 5;
+        private double elapsedSigma = 1;
+        private double stdoutRatio;
+        private long stdoutBytes = 4096;
+        private long seed = 42;
+
+        private Builder() {
+        }
+
+        public SyntheticSuite build() {
+            return new SyntheticSuite(this);
+        }
+
+        public Builder packageName(String packageName) {
+            this.packageName = packageName;
+            return this;
+        }
+
+        public Builder classes(int classes) {
+            this.classes = classes;
+            return this;
+        }
+
+        public Builder nestedClasses(int nestedClasses) {
+            this.nestedClasses = nestedClasses;
+            return this;
+        }
+
+        public Builder depth(int depth) {
+            this.depth = depth;
+            return this;
+        }
+
+        public Builder testsPerClass(int testsPerClass) {
+            this.testsPerClass = testsPerClass;
+            return this;
+        }
+
+        public Builder parameterizedRatio(double parameterizedRatio) {
+            this.parameterizedRatio = parameterizedRatio;
+            return this;
+        }
+
+        public Builder fanOut(int fanOut) {
+            this.fanOut = fanOut;
+            return this;
+        }
+
+        public Builder failureRatio(double failureRatio) {
+            this.failureRatio = failureRatio;
+            return this;
+        }
+
+        public Builder errorRatio(double errorRatio) {
+            this.errorRatio = errorRatio;
+            return this;
+        }
+
+        public Builder skippedRatio(double skippedRatio) {
+            this.skippedRatio = skippedRatio;
+            return this;
+        }
+
+        public Builder elapsedMedianMillis(double elapsedMedianMillis) {
+            this.elapsedMedianMillis = elapsedMedianMillis;
+            return this;
+        }
+
+        public Builder elapsedSigma(double elapsedSigma) {
+            this.elapsedSigma = elapsedSigma;
+            return this;
+        }
+
+        public Builder stdoutRatio(double stdoutRatio) {
+            this.stdoutRatio = stdoutRatio;
+            return this;
+        }
+
+        public Builder stdoutBytes(long stdoutBytes) {
+            this.stdoutBytes = stdoutBytes;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+
+class SyntheticSuiteTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    void printsGeneratedSuite() {
+        SyntheticSuite suite = SyntheticSuite.builder().classes(1).nestedClasses(2).depth(1).testsPerClass(2)
+                .elapsedSigma(0).elapsedMedianMillis(1).build();
+
+        List<String> lines = new SurefireEmulator(ReporterOptions.builder().build(), suite).run();
+
+        assertThat(lines).containsExactly(
+                ".--Test0 - 0.006 s",
+                "|  +-- [OK] test0() - 0.001 s",
+                "|  '-- [OK] test1() - 0.001 s",
+                "+-----Nested0 - 0.002 s",
+                "|     +-- [OK] test0() - 0.001 s",
+                "|     '-- [OK] test1() - 0.001 s",
+                "'-----Nested1 - 0.002 s",
+                "      +-- [OK] test0() - 0.001 s",
+                "      '-- [OK] test1() - 0.001 s");
+    }
+
+    @Test
+    void generatesTheConfiguredMixOfResults() {
+        SyntheticSuite.Builder builder = SyntheticSuite.builder().classes(100).testsPerClass(100)
+                .parameterizedRatio(0.1).fanOut(10).failureRatio(0.05).errorRatio(0.02).skippedRatio(0.1);
+        SyntheticSuite suite = builder.build();
+        SyntheticSuite sameSeed = builder.build();
+
+        suite.run(silentReporter());
+        sameSeed.run(silentReporter());
+
+        long tests = suite.getTestCount();
+        assertThat(tests).isCloseTo(19_000L, within(1000L));
+        assertThat((double) suite.getCount(ReportEntryType.FAILURE) / tests).isCloseTo(0.05, within(0.01));
+        assertThat((double) suite.getCount(ReportEntryType.ERROR) / tests).isCloseTo(0.02, within(0.01));
+        assertThat((double) suite.getCount(ReportEntryType.SKIPPED) / tests).isCloseTo(0.1, within(0.01));
+        assertThat(sameSeed.getTestCount()).isEqualTo(tests);
+        assertThat(sameSeed.getCount(ReportEntryType.FAILURE)).isEqualTo(suite.getCount(ReportEntryType.FAILURE));
+    }
+
+    @Test
+    void printsLargeStdoutThroughTheDetailBudget() {
+        ReporterOptions options = ReporterOptions.builder().printStdoutOnSuccess(true).maxDetailLines(10)
+                .detailHeadLines(2).detailTailLines(2).detailSpillDirectory(spillDirectory.toString()).build();
+        try (SyntheticSuite suite = SyntheticSuite.builder().classes(1).testsPerClass(1)
+                .stdoutRatio(1).stdoutBytes(1024 * 1024).build()) {
+
+            List<String> lines = new SurefireEmulator(options, suite).run();
+
+            assertThat(lines).anyMatch(line -> line.contains("lines omitted"));
+            assertThat(spillDirectory.toFile().list())
+                    .hasSize(1).allMatch(name -> name.startsWith("synthetic.Test0.test0__-stdout-"));
+        }
+    }
+
+    @Test
+    void drivesMillionTestsThroughTheReporter() {
+        EmulatorLogger chunks = new EmulatorLogger(new NullConsoleLogger());
+        ConsoleTreeReporter reporter = new ConsoleTreeReporter(chunks, ReporterOptions.builder().batchOutput(true).build());
+        SyntheticSuite suite = SyntheticSuite.builder().classes(1000).nestedClasses(3).depth(1).testsPerClass(250)
+                .failureRatio(0.01).skippedRatio(0.01).build();
+
+        assertTimeout(Duration.ofSeconds(60), () -> suite.run(reporter));
+
+        long lines = chunks.getLogList().stream().mapToLong(chunk -> chunk.split(System.lineSeparator(), -1).length).sum();
+        assertThat(suite.getTestCount()).isEqualTo(1_000_000);
+        assertThat(lines).isEqualTo(1_000_000 + 4000);
+    }
+
+    private static ConsoleTreeReporter silentReporter() {
+        return new ConsoleTreeReporter(new NullConsoleLogger(), ReporterOptions.builder().build());
+    }
+}
@@ -0,0 +1,50 @@
+package org.apache.maven.plugin.surefire.report;
+
+import org.apache.maven.surefire.api.report.RunMode;
+import org.apache.maven.surefire.api.report.SimpleReportEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.apache.maven.plugin.surefire.report.TextFormatter.abbreviateName;
+import static org.apache.maven.plugin.surefire.report.TextFormatter.appendElapsedTime;
+import static org.apache.maven.surefire.shared.lang3.StringUtils.abbreviate;
+import static org.apache.maven.surefire.shared.lang3.StringUtils.normalizeSpace;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextFormatterTest {
+
+    @Test
+    void formatsElapsedTimeLikeSurefire() {
+        // every millisecond around the points where the number of decimals changes, which also covers the ties
+        // of each number of decimals, then a sample of the rest
+        IntStream boundaries = IntStream.of(0, 10_000, 100_000, 1_000_000)
+                .flatMap(boundary -> IntStream.rangeClosed(boundary - 1_000, boundary + 1_000));
+        IntStream sample = new Random(42).ints(10_000, 0, 10_000_000);
+        IntStream.concat(IntStream.concat(boundaries, sample), IntStream.of(123_456_789, Integer.MAX_VALUE))
+                .forEach(elapsed -> assertThat(appendElapsedTime(new StringBuilder(), elapsed).toString())
+                        .as("elapsed %d ms", elapsed)
+                        .isEqualTo(elapsedTimeAsString(elapsed)));
+    }
+
+    @Test
+    void formatsMissingElapsedTimeLikeSurefire() {
+        assertThat(appendElapsedTime(new StringBuilder(), null).toString())
+                .isEqualTo(String.valueOf(elapsedTimeAsString(null)));
+    }
+
+    @Test
+    void abbreviatesNamesLikeBefore() {
+        String longName = new String(new char[200]).replace('\0', 'x');
+        for (String name : new String[]{"", "test()", "a b", " a", "a ", "a  b", "a\tb", "a b", "a\nb", longName}) {
+            assertThat(abbreviateName(name)).isEqualTo(abbreviate(normalizeSpace(name), "...", TextFormatter.MAX_WIDTH));
+        }
+        assertThat(abbreviateName(null)).isNull();
+    }
+
+    private static String elapsedTimeAsString(Integer elapsed) {
+        SimpleReportEntry entry = new SimpleReportEntry(RunMode.NORMAL_RUN, 1L, "Test", null, "test", null);
+        return new WrappedReportEntry(entry, ReportEntryType.SUCCESS, elapsed, null, null).elapsedTimeAsString();
+    }
+}